@@ -9,7 +9,6 @@ import javafx.scene.control.DatePicker;
 import javafx.scene.control.TextField;
 
 import java.net.URL;
-import java.sql.SQLException;
 import java.time.*;
 import java.time.format.DateTimeFormatter;
 import java.time.format.FormatStyle;
@@ -25,7 +24,7 @@ public class AppointmentForm extends Form<Appointment> {
             .matches("^23.+00$");
     private final Map<Long, Contact> contactMap;
     private final HashMap<Long, Customer> customerMap = new HashMap<>();
-    private final HashMap<Long, User> userMap = new HashMap<>();
+    private final Map<Long, User> userMap;
     @FXML
     private DatePicker startDatePicker;
     @FXML
@@ -59,12 +58,14 @@ public class AppointmentForm extends Form<Appointment> {
 
     public AppointmentForm(String windowTitle,
                            Map<Long, Contact> contactMap,
+                           Map<Long, User> userMap,
                            List<Customer> customers,
                            FormFactory.Mode mode,
                            Appointment record,
                            Function<Appointment, Boolean> callback) {
         super(windowTitle, mode, record, callback);
         this.contactMap = contactMap;
+        this.userMap = userMap;
         for (Customer customer : customers) {
             customerMap.put(customer.getId(), customer);
         }
@@ -72,9 +73,9 @@ public class AppointmentForm extends Form<Appointment> {
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        buildUserMap();
         initializeDateFields();
         contactComboBox.getItems().addAll(contactMap.values());
+        userComboBox.getItems().addAll(userMap.values());
         customerComboBox.getItems().addAll(customerMap.values());
         super.initialize(url, resourceBundle);
     }
@@ -209,27 +210,6 @@ public class AppointmentForm extends Form<Appointment> {
         }
     }
 
-    /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
-     * <p>
-     * creates a map of User Id to User object for easy lookup
-     */
-    private void buildUserMap() {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT User_ID, User_Name FROM users", (ex, rs) -> {
-            if (ex != null) return;
-            try {
-                while (rs.next()) {
-                    final User user = new User(rs.getLong(1), rs.getString(2));
-                    userMap.put(user.getId(), user);
-                }
-            } catch (SQLException exception) {
-                printSQLException(exception);
-            }
-        });
-        userComboBox.getItems().addAll(userMap.values());
-    }
-
     /**
      * parses a LocalDateTime out of the fields that make up the date/time info
      *
@@ -4,6 +4,7 @@ import Models.Appointment;
 import Models.Contact;
 import Models.Customer;
 import Models.Record;
+import Models.User;
 
 import java.util.List;
 import java.util.Map;
@@ -11,6 +12,7 @@ import java.util.function.Function;
 
 public class AppointmentFormFactory extends FormFactory<Appointment, AppointmentForm> {
     private Map<Long, Contact> contactMap;
+    private Map<Long, User> userMap;
     private List<Customer> customers;
 
     public AppointmentFormFactory(Class<Appointment> modelClass) {
@@ -22,7 +24,7 @@ public class AppointmentFormFactory extends FormFactory<Appointment, Appointment
      */
     @Override
     public AppointmentForm getInstance(Mode mode, Appointment record, Function<Appointment, Boolean> callback) {
-        return new AppointmentForm(getTitle(mode), contactMap, customers, mode, record, callback);
+        return new AppointmentForm(getTitle(mode), contactMap, userMap, customers, mode, record, callback);
     }
 
     /**
@@ -34,6 +36,15 @@ public class AppointmentFormFactory extends FormFactory<Appointment, Appointment
         this.contactMap = contactMap;
     }
 
+    /**
+     * sets the user map that is passed to every form controller instance. it prevents excessive sql requests
+     *
+     * @param userMap a map of userId to user models
+     */
+    public void setUserMap(Map<Long, User> userMap) {
+        this.userMap = userMap;
+    }
+
     /**
      * passes a list of all customers to every form controller instance. it prevents excessive sql requests
      *
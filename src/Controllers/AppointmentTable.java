@@ -1,39 +1,94 @@
 package Controllers;
 
+import Database.Transaction;
 import Models.Appointment;
 import Models.Contact;
 import Models.Customer;
 import Models.Record;
+import Models.User;
+import Repositories.AppointmentRepository;
+import Repositories.CsvImporter;
+import Repositories.OverlapIndex;
+import Repositories.RecordRepository;
+import Repositories.ReferenceData;
+import Repositories.TimeBucketIndex;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
+import javafx.collections.transformation.FilteredList;
 import javafx.fxml.Initializable;
 import javafx.scene.control.TableColumn;
 
 import java.net.URL;
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 
 public final class AppointmentTable extends Table<Appointment> implements Initializable {
     private final Filter filterController = new Filter();
     private final HashMap<Long, Contact> contactMap = new HashMap<>();
+    private final HashMap<Long, User> userMap = new HashMap<>();
     private final ObservableList<Customer> customers;
-    private final String selectQuery = "SELECT Appointment_ID, Title, Description, `Location`, `Type`, `Start`, " +
-            "`End`, Customer_ID, User_ID, Contact_ID " +
-            "FROM appointments";
+    private final AppointmentRepository appointmentRepository = new AppointmentRepository(getQueryRunner());
+    private final OverlapIndex overlapIndex = new OverlapIndex(appointmentRepository);
+    private final ReminderScheduler reminders;
+    private final TimeBucketIndex buckets = new TimeBucketIndex();
+    private static final int PAGE_SIZE = 250;
+    private static final int MAX_RESIDENT_ROWS = 1_000;
+    /**
+     * the (`Start`, Appointment_ID) order the pages are read in. the start is compared in UTC like the column, since
+     * the local start repeats an hour when daylight saving time ends
+     */
+    private static final Comparator<Appointment> KEY_ORDER = Comparator.comparing(Appointment::getUTCStart)
+            .thenComparingLong(Appointment::getId);
     private Filter.FilterFields currentFilter = null;
+    private Filter.FilterFields loadedFilter = null;
+    private KeysetPager<Appointment> pager;
+    private FilteredList<Appointment> filteredRows;
 
-    public AppointmentTable(ObservableList<Customer> customers, Main.EventEmitter eventEmitter) {
+    /**
+     * lambda1: remove the appointments deleted with a customer
+     * lambda2: keep the buckets of the rows current
+     * <p>
+     * the buckets listen to the rows before the filtered view of the rows is created, so a row is always in its buckets
+     * by the time the view tests it
+     *
+     * @param customers    the customers the appointments can be booked for
+     * @param eventEmitter the emitter of the customer table's events
+     * @param reminders    the reminders of the user's appointments, told about every appointment the table changes
+     */
+    public AppointmentTable(ObservableList<Customer> customers,
+                            Main.EventEmitter eventEmitter,
+                            ReminderScheduler reminders) {
         super(new AppointmentFormFactory(Appointment.class), eventEmitter);
         ((AppointmentFormFactory) formFactory).setContactMap(Collections.unmodifiableMap(contactMap));
+        ((AppointmentFormFactory) formFactory).setUserMap(Collections.unmodifiableMap(userMap));
         ((AppointmentFormFactory) formFactory).setCustomers(Collections.unmodifiableList(customers));
         this.customers = customers;
-        eventEmitter.addListener(Main.Event.CustomerDeleted, this::populateTable);
+        this.reminders = reminders;
+        // lambda to remove the appointments deleted with a customer
+        eventEmitter.addListener(Main.Event.CustomerDeleted,
+                deletion -> removeDeletedAppointments((Main.CustomerDeletion) deletion));
+        // lambda to keep the buckets of the rows current
+        getRows().addListener((ListChangeListener<Appointment>) change -> {
+            while (change.next()) {
+                for (Appointment removed : change.getRemoved()) {
+                    buckets.remove(removed);
+                }
+                for (Appointment added : change.getAddedSubList()) {
+                    buckets.add(added);
+                }
+            }
+        });
     }
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        pager = new KeysetPager<>(tableView, getRows(), KEY_ORDER, this::queryPage, PAGE_SIZE, MAX_RESIDENT_ROWS);
         super.initialize(url, resourceBundle);
+        filteredRows = new FilteredList<>(getRows());
+        tableView.setItems(filteredRows);
+        pager.install();
         filterButton.setDisable(false);
         filterButton.setVisible(true);
     }
@@ -75,124 +130,233 @@ public final class AppointmentTable extends Table<Appointment> implements Initia
     }
 
     /**
+     * lambda1: add the contacts and users before the appointments that display them
+     * lambda2: interrupt both reads when the load is cancelled
+     * <p>
+     * the first page of appointments is queried while the contacts and users are read from the shared reference data,
+     * which is usually already in memory, and the table renders once both have finished
+     *
      * @see Table#populateData()
      */
     @Override
     protected final void populateData() {
-        populateTable();
-        executeQuery("SELECT * FROM contacts", this::buildContactMap);
+        final CompletableFuture<ReferenceData> referenceData = callDatabaseAsync(getReferenceData()::get, null);
+        final CompletableFuture<List<Appointment>> page = firstPage();
+        // lambda to add the contacts and users before the appointments that display them
+        final CompletableFuture<List<Appointment>> load = page.thenCombine(referenceData, (appointments, reference) -> {
+            if (reference != null) {
+                contactMap.putAll(reference.contacts);
+                userMap.putAll(reference.users);
+            }
+            return appointments;
+        });
+        // lambda to interrupt both reads when the load is cancelled
+        load.whenComplete((appointments, ex) -> {
+            if (load.isCancelled()) {
+                page.cancel(true);
+                referenceData.cancel(true);
+            }
+        });
+        loadItems(load);
     }
 
     /**
-     * populates the table with all of the appointment information. called by populateData() and the event emitter
-     * listener whenever a customer is deleted. it applies the current filter if it exists
+     * populates the table with the first page of appointments. called when the filter is applied and the rows have to
+     * be read again
      */
     private void populateTable() {
-        List<Object> arguments = null;
-        String query = selectQuery;
-        tableView.getItems().clear();
-        if (currentFilter != null) {
-            query += String.format(" WHERE YEAR(`Start`) = ? AND %s(`Start`) = ?", currentFilter.field);
-            arguments = toArray(currentFilter.year, currentFilter.fieldValue);
-        }
-        executeQuery(query, arguments, this::parseAppointments);
+        loadItems(firstPage());
     }
 
     /**
-     * parses the results of an appointment query into instances of the appointment model for display in the table
+     * starts paging over with the current filter applied by the database, so any filter applied in memory is dropped
      *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing the appointment rows
+     * @return a future completed on the JavaFX application thread with the first page, cancelling its query when it is
+     * cancelled
      */
-    private void parseAppointments(SQLException ex, ResultSet rs) {
-        if (ex != null) return;
-        final ObservableList<Appointment> appointments = tableView.getItems();
-        appointments.clear();
-        try {
-            while (rs.next()) {
-                appointments.add(new Appointment(rs.getLong(1),
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        rs.getString(5),
-                        rs.getTimestamp(6).toLocalDateTime(),
-                        rs.getTimestamp(7).toLocalDateTime(),
-                        rs.getLong(8),
-                        rs.getLong(9),
-                        rs.getLong(10)));
-            }
-        } catch (SQLException exception) {
-            printSQLException(exception);
+    private CompletableFuture<List<Appointment>> firstPage() {
+        loadedFilter = currentFilter;
+        filteredRows.setPredicate(null);
+        return pager.firstPage();
+    }
+
+    /**
+     * lambda1: match the appointments in the bucket of the filter
+     * <p>
+     * filters the rows that are already loaded by their month or week bucket, without reading them again. only used
+     * when every appointment is loaded
+     */
+    private void applyPredicate() {
+        final Filter.FilterFields filter = currentFilter;
+        if (filter == null) {
+            filteredRows.setPredicate(null);
+            return;
         }
+        final AppointmentRepository.Period period = AppointmentRepository.Period.valueOf(filter.field);
+        // lambda to match the appointments in the bucket of the filter
+        filteredRows.setPredicate(appointment -> buckets.contains(appointment, period, filter.year, filter.fieldValue));
     }
 
     /**
-     * builds a map of contactId to contact model instances. used to look up the contact name from an appointment record
-     * so the contact name is displayed in the table
+     * removes the rows of the appointments that were deleted with a customer, instead of reloading the table
      *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing the contact rows
+     * @param deletion the deleted customer and the ids of its appointments
      */
-    private void buildContactMap(SQLException ex, ResultSet rs) {
-        if (ex != null) return;
-        try {
-            while (rs.next()) {
-                final Contact contact = new Contact(rs.getLong(1), rs.getString(2), rs.getString((3)));
-                contactMap.put(contact.getId(), contact);
-            }
-        } catch (SQLException exception) {
-            printSQLException(exception);
+    private void removeDeletedAppointments(Main.CustomerDeletion deletion) {
+        overlapIndex.removeCustomer(deletion.customerId);
+        removeItems(deletion.appointmentIds);
+        tableView.refresh();
+    }
+
+    /**
+     * @see Table#removeItems(Set)
+     */
+    @Override
+    protected void removeItems(Set<Long> ids) {
+        overlapIndex.removeAll(ids);
+        reminders.removeAll(ids);
+        super.removeItems(ids);
+    }
+
+    /**
+     * an edited appointment may have moved to another bucket, so the rows filtered in memory are filtered again
+     *
+     * @see Table#recordSaved(Record)
+     */
+    @Override
+    protected void recordSaved(Appointment record) {
+        overlapIndex.put(record);
+        reminders.put(record);
+        buckets.update(record);
+        if (filteredRows.getPredicate() != null) applyPredicate();
+    }
+
+    /**
+     * an appointment whose start was edited is taken out and put back at its new position like a refreshed one, so the
+     * rows stay in the key order the pages are read with, and it is dropped if it no longer matches the filter
+     *
+     * @see Table#updateItem(Record, Record)
+     * @see AppointmentTable#mergeItem(Appointment, Appointment)
+     */
+    @Override
+    protected void updateItem(Appointment resident, Appointment changed) {
+        final boolean moved = !resident.getStart().equals(changed.getStart());
+        if (moved) getRows().remove(resident);
+        super.updateItem(resident, changed);
+        if (moved && matchesFilter(resident)) pager.add(resident);
+    }
+
+    /**
+     * @see Table#recordDeleted(Record)
+     */
+    @Override
+    protected void recordDeleted(Appointment record) {
+        overlapIndex.remove(record.getId());
+        reminders.remove(record.getId());
+    }
+
+    /**
+     * lambda1: query the page before or after the anchor
+     * <p>
+     * queries a page of appointments in start order, applying the filter the rows are read with if it exists
+     *
+     * @param anchor   the appointment to seek from, or null for the first page
+     * @param backward whether to query the appointments before the anchor instead of after it
+     * @return a future completed on the JavaFX application thread with the appointments of the page
+     */
+    private CompletableFuture<List<Appointment>> queryPage(Appointment anchor, boolean backward) {
+        final Filter.FilterFields filter = loadedFilter;
+        final AppointmentRepository.Period period = filter == null
+                ? null
+                : AppointmentRepository.Period.valueOf(filter.field);
+        final int year = filter == null ? 0 : filter.year;
+        final int value = filter == null ? 0 : filter.fieldValue;
+        // lambda to query the page before or after the anchor
+        return callDatabaseAsync(() -> backward
+                        ? appointmentRepository.findPageBefore(period, year, value, anchor, PAGE_SIZE)
+                        : appointmentRepository.findPageAfter(period, year, value, anchor, PAGE_SIZE),
+                Collections.emptyList());
+    }
+
+    /**
+     * an appointment whose start moved is taken out and put back at its new position, and one that no longer matches
+     * the filter is removed
+     *
+     * @see Table#mergeItem(Record, Record)
+     */
+    @Override
+    protected void mergeItem(Appointment resident, Appointment changed) {
+        overlapIndex.put(changed);
+        reminders.put(changed);
+        final boolean matches = matchesFilter(changed);
+        if (resident != null && matches && resident.getStart().equals(changed.getStart())) {
+            resident.applyChanges(changed);
+            return;
         }
+        if (resident != null) getRows().remove(resident);
+        if (matches) pager.add(changed);
+    }
+
+    /**
+     * @param appointment the appointment to check
+     * @return whether the appointment starts in the month or week the rows are read with in UTC, as the database filters
+     * them, always true if the rows are read without a filter
+     */
+    private boolean matchesFilter(Appointment appointment) {
+        final Filter.FilterFields filter = loadedFilter;
+        if (filter == null) return true;
+        final AppointmentRepository.Period period = AppointmentRepository.Period.valueOf(filter.field);
+        final LocalDateTime start = appointment.getUTCStart();
+        return !start.isBefore(period.from(filter.year, filter.fieldValue))
+                && start.isBefore(period.to(filter.year, filter.fieldValue));
     }
 
     /**
-     * @see Table#getInsertStatement()
+     * keeps a new appointment in start order with the rest of the page
+     *
+     * @see Table#addItem(Record)
      */
     @Override
-    protected String getInsertStatement() {
-        return "INSERT INTO appointments (Title, Description, `Location`, `Type`, `Start`, `End`, Customer_ID, User_ID, Contact_ID, Created_By, Last_Updated_By) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    protected void addItem(Appointment record) {
+        pager.add(record);
     }
 
     /**
-     * @see Table#getNewRecord()
+     * @see Table#getRepository()
      */
     @Override
-    protected Appointment getNewRecord() {
-        return new Appointment(0, null, null, null, null, null, null, 0, 0, 0);
+    protected RecordRepository<Appointment> getRepository() {
+        return appointmentRepository;
     }
 
     /**
-     * @see Table#getUpdateStatement()
+     * @see Table#getImporter(ReferenceData)
      */
     @Override
-    protected String getUpdateStatement() {
-        return "UPDATE appointments " +
-                "SET Title = ?, Description = ?, `Location` = ?, `Type` = ?, `Start` = ?, `End` = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ?, Last_Updated_By = ?, Last_Update = NOW() " +
-                "WHERE Appointment_ID = ?";
+    protected CsvImporter<Appointment> getImporter(ReferenceData referenceData) {
+        return CsvImporter.forAppointments(appointmentRepository, referenceData, userId);
     }
 
     /**
-     * @see Table#deleteDependencies(Record)
+     * @see Table#getNewRecord()
      */
     @Override
-    protected boolean deleteDependencies(Appointment record) {
-        return true;
+    protected Appointment getNewRecord() {
+        return new Appointment(0, null, null, null, null, null, null, 0, 0, 0);
     }
 
     /**
-     * @see Table#getDeleteStatement()
+     * @see Table#deleteDependencies(Transaction, Record)
      */
     @Override
-    protected String getDeleteStatement() {
-        return "DELETE FROM appointments WHERE Appointment_ID = ?";
+    protected void deleteDependencies(Transaction transaction, Appointment record) {
     }
 
     /**
-     * @see Table#getDeletedMessage(Record)
+     * @see Table#getDeletedMessage(Transaction, Record)
      */
     @Override
-    protected String getDeletedMessage(Appointment appointment) {
+    protected String getDeletedMessage(Transaction transaction, Appointment appointment) {
         final String replacement = String.format("%s (%s: %d, %s: %s)",
                 bundle.getString("appointment.appointment"),
                 bundle.getString("record.id"),
@@ -216,6 +380,9 @@ public final class AppointmentTable extends Table<Appointment> implements Initia
 
     /**
      * lambda1: registers a callback with the filter controller so we know when the filter can be applied
+     * <p>
+     * if every appointment is already loaded the filter only swaps the predicate of the rows, otherwise the filtered
+     * appointments are read from the database
      *
      * @see Table#addFilter()
      */
@@ -224,41 +391,28 @@ public final class AppointmentTable extends Table<Appointment> implements Initia
         // lambda registers a callback with the filter controller so we know when the filter can be applied
         filterController.openFilterWindow((fields) -> {
             currentFilter = fields;
-            populateData();
+            if (loadedFilter == null && pager.isComplete()) {
+                applyPredicate();
+            } else {
+                populateTable();
+            }
         });
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: check the customer's appointments for an overlap
+     * <p>
+     * an overlap found by the in-memory interval tree of the customer's appointments is rejected without a query. the
+     * tree only learns about other users' bookings when the table refreshes, so when it finds no overlap the database
+     * is asked to confirm
      *
      * @see Table#canUpdate(Record)
      */
     @Override
     protected boolean canUpdate(Appointment record) {
-        String query = "SELECT COUNT(*) FROM appointments " +
-                "WHERE (UNIX_TIMESTAMP(`START`) BETWEEN UNIX_TIMESTAMP(?) AND UNIX_TIMESTAMP(?)" +
-                "OR UNIX_TIMESTAMP(`END`) BETWEEN UNIX_TIMESTAMP(?) AND UNIX_TIMESTAMP(?)) " +
-                "AND Customer_ID = ?";
-        final List<Object> arguments = toArray(record.getSQLStart(),
-                record.getSQLEnd(),
-                record.getSQLStart(),
-                record.getSQLEnd(),
-                record.getCustomerId());
-        if (record.getId() != 0L) {
-            query += " AND Appointment_Id != ?";
-            arguments.add(record.getId());
-        }
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        final boolean noOverlaps = executeQuery(query, arguments, (ex, rs) -> {
-            if (ex != null) return false;
-            try {
-                rs.next();
-                return rs.getInt("COUNT(*)") == 0;
-            } catch (SQLException exception) {
-                printSQLException(exception);
-                return false;
-            }
-        });
+        // lambda to check the customer's appointments for an overlap
+        final boolean noOverlaps = callDatabase(() -> !overlapIndex.overlaps(record)
+                && appointmentRepository.countOverlapping(record) == 0, false);
 
         if (!noOverlaps) {
             displayError(bundle.getString("error.overlapping"));
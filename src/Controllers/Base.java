@@ -1,40 +1,44 @@
 package Controllers;
 
+import Database.ConnectionPool;
+import Database.PooledConnection;
+import Database.QueryRunner;
+import Database.Schema;
+import Repositories.ReferenceDataCache;
+import javafx.application.Platform;
 import javafx.scene.control.Alert;
-import org.w3c.dom.Document;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
 import java.io.File;
-import java.net.URI;
-import java.sql.*;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
 import java.util.ResourceBundle;
-import java.util.function.BiConsumer;
-import java.util.function.BiFunction;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * an abstract base controller class with helper methods that can be used across controllers
  */
 abstract public class Base {
     protected static ResourceBundle bundle;
-    protected static Connection conn;
+    private static final QueryRunner queryRunner = new QueryRunner(Base::getConnectionPool);
+    private static final ReferenceDataCache referenceData = new ReferenceDataCache(queryRunner);
+    private static volatile ConnectionPool connectionPool;
+    private static ExecutorService databaseExecutor;
+    private static final List<Runnable> shutdownTasks = new ArrayList<>();
+    /**
+     * the system property that prints the pool counters and statement metrics when the app closes, e.g.
+     * -DSchedulingApp.printMetrics=true. the statement metrics are exposed as MXBeans either way
+     */
+    private static final String PRINT_METRICS_PROPERTY = "SchedulingApp.printMetrics";
     protected static long userId = 0L;
     private static Locale coercedLocale = coerceLocale();
     protected View viewController;
 
-    {
-        if (conn == null) {
-            try {
-                createDatabaseConnection();
-            } catch (SQLException ex) {
-                printSQLException(ex);
-                conn = null;
-            }
-        }
-    }
-
     /**
      * Sets the locale to be used for the duration of the program
      *
@@ -76,213 +80,184 @@ abstract public class Base {
     }
 
     /**
-     * parses the git ignored database.xml file in the root of the repo to build a connection string and keep the
-     * connection details private
+     * lazily creates the connection pool shared by every controller from the git ignored database.xml file in the
+     * root of the repo, so the file is only parsed once for the runtime of the program. a database behind the current
+     * schema version is migrated before the pool is handed out, one that is up to date only has its version read
      *
-     * @return the database connection string as parsed from the database.xml file
-     * @throws Exception any IO or parsing exception
+     * @return the connection pool
+     * @throws SQLException when the database.xml file could not be read or the schema could not be migrated
      */
-    private String getConnectionString() throws Exception {
-        final File inputFile = new File("database.xml");
-        final DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
-        final DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
-        final Document doc = dBuilder.parse(inputFile);
-        doc.getDocumentElement().normalize();
-
-        final String serverName = doc.getElementsByTagName("server").item(0).getTextContent();
-        final int port = Integer.parseInt(doc.getElementsByTagName("port").item(0).getTextContent());
-        final String name = doc.getElementsByTagName("name").item(0).getTextContent();
-        final String user = doc.getElementsByTagName("user").item(0).getTextContent();
-        final String password = doc.getElementsByTagName("password").item(0).getTextContent();
-        final String query = String.format("user=%s&password=%s", user, password);
+    protected static synchronized ConnectionPool getConnectionPool() throws SQLException {
+        if (connectionPool == null) {
+            final ConnectionPool pool;
+            try {
+                pool = ConnectionPool.fromConfig(new File("database.xml"));
+            } catch (Exception e) {
+                throw new SQLException("Could not read the database configuration", "08001", e);
+            }
+            try (PooledConnection connection = pool.borrow()) {
+                Schema.migrate(connection.getConnection());
+            } catch (SQLException ex) {
+                pool.close();
+                throw ex;
+            }
+            connectionPool = pool;
+        }
 
-        return new URI("jdbc:mysql", null, serverName, port, "/" + name, query, null).toString();
+        return connectionPool;
     }
 
     /**
-     * establishes a connection to the database
-     *
-     * @return the connection object
-     * @throws SQLException any exception that occurs when trying to connect to the DB
+     * @return the runner the repositories of every controller share, borrowing from the lazily created pool
      */
-    private Connection createDatabaseConnection() throws SQLException {
-        if (conn != null && !conn.isClosed()) return conn;
-        conn = null;
-        try {
-            conn = DriverManager.getConnection(getConnectionString());
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-
-        return conn;
+    protected static QueryRunner getQueryRunner() {
+        return queryRunner;
     }
 
     /**
-     * lambda1: lambda to consume an exception and result set and allow for DRY resource cleanup
-     * <p>
-     * A wrapper around Base#executeQuery(String, Object[], BiFunction) for when there are no arguments and a value is
-     * needed from the callback function
-     *
-     * @param <T>     whatever value the handler returns
-     * @param query   the query to execute
-     * @param handler a function to handle any errors or result sets from the query
-     * @return the value from the handler
-     * @see Base#executeQuery(String, List, BiFunction)
+     * @return the reference data cache every controller shares
      */
-    protected <T> T executeQuery(String query, BiFunction<SQLException, ResultSet, T> handler) {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        return executeQuery(query, null, (ex, rs) -> (T) handler.apply(ex, rs));
+    protected static ReferenceDataCache getReferenceData() {
+        return referenceData;
     }
 
     /**
-     * lambda1: lambda to consume an exception and result set and allow for DRY resource cleanup
-     * <p>
-     * A wrapper around Base#executeQuery(String, Object[], BiFunction) for when there are no arguments and no value is
-     * needed from the callback function
+     * points every controller at a different connection pool, e.g. one over an embedded database seeded by
+     * DataGenerator for offline benchmarks, closing the pool that was in use. the cached reference data of the old
+     * database is dropped
      *
-     * @param query   the query to execute
-     * @param handler a function to handle any errors or result sets from the query
-     * @see Base#executeQuery(String, List, BiFunction)
+     * @param pool the connection pool to use from now on
      */
-    protected void executeQuery(String query, BiConsumer<SQLException, ResultSet> handler) {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery(query, null, (ex, rs) -> {
-            handler.accept(ex, rs);
-            return null;
-        });
+    public static synchronized void useConnectionPool(ConnectionPool pool) {
+        if (connectionPool != null && connectionPool != pool) connectionPool.close();
+        connectionPool = pool;
+        referenceData.invalidate();
     }
 
     /**
-     * lambda1: lambda to consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: create daemon threads so queries in flight never keep the app alive
      * <p>
-     * A wrapper around Base#executeQuery(String, Object[], BiFunction) for when no value is needed from the callback
-     * function
+     * lazily creates the executor that runs the asynchronous queries. virtual threads are used when the runtime
+     * supports them, otherwise a small fixed pool of daemon threads is used
      *
-     * @param query     the query to execute
-     * @param arguments an array of arguments
-     * @param handler   a function to handle any errors or result sets from the query
-     * @see Base#executeQuery(String, List, BiFunction)
+     * @return the executor for database work
      */
-    protected void executeQuery(String query, List<Object> arguments, BiConsumer<SQLException, ResultSet> handler) {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery(query, arguments, (ex, rs) -> {
-            handler.accept(ex, rs);
-            return null;
-        });
+    private static synchronized ExecutorService getDatabaseExecutor() {
+        if (databaseExecutor == null) {
+            try {
+                databaseExecutor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (ReflectiveOperationException | RuntimeException ex) {
+                final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+                // lambda to create daemon threads so queries in flight never keep the app alive
+                databaseExecutor = Executors.newFixedThreadPool(threads, runnable -> {
+                    final Thread thread = new Thread(runnable, "database-worker");
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+
+        return databaseExecutor;
     }
 
     /**
-     * A wrapper around the SQL query that allows for a lambda function to be passed as an argument
-     * for a Node-esque error-first callback style. This allows for the caller to consume the result
-     * set or error and for the resources to be cleaned up in a DRY manner
+     * registers work to stop along with the database, e.g. background tasks that would otherwise keep reading from a
+     * closed pool
      *
-     * @param <T>       whatever value the handler returns
-     * @param query     the query to execute
-     * @param arguments an array of arguments
-     * @param handler   a function to handle any errors or result sets from the query, its return value will be returned
-     *                  from this function
-     * @return the value from the handler
+     * @param task the work to run when the application stops, before the pool is closed
      */
-    protected <T> T executeQuery(String query, List<Object> arguments, BiFunction<SQLException, ResultSet, T> handler) {
-        try (var stmt = createDatabaseConnection().prepareStatement(query)) {
-            setArguments(stmt, arguments);
+    protected static synchronized void runOnShutdown(Runnable task) {
+        shutdownTasks.add(task);
+    }
 
-            try (var rs = stmt.executeQuery()) {
-                return handler.apply(null, rs);
-            }
-        } catch (SQLException ex) {
-            printSQLException(ex);
-            return handler.apply(ex, null);
+    /**
+     * runs the shutdown tasks, stops the database executor and closes every pooled connection, printing the pool
+     * counters and statement metrics first if PRINT_METRICS_PROPERTY is set. called when the application stops
+     */
+    public static synchronized void shutdownDatabase() {
+        for (Runnable task : shutdownTasks) {
+            task.run();
+        }
+        shutdownTasks.clear();
+        if (databaseExecutor != null) {
+            databaseExecutor.shutdownNow();
+            databaseExecutor = null;
         }
+        if (connectionPool == null) return;
+        if (Boolean.getBoolean(PRINT_METRICS_PROPERTY)) {
+            System.out.println("Connection pool: " + connectionPool.getMetrics());
+            connectionPool.getQueryMetrics().printSummary();
+        }
+        connectionPool.close();
+        connectionPool = null;
     }
 
     /**
-     * a function to insert a new record using the given statement and arguments and clean up any resources after the
-     * callback consumes any exception or result set
+     * runs a repository call on the calling thread. a failure is printed and the fallback is returned instead, so a failed
+     * query leaves the view empty rather than crashing it
      *
-     * @param query     a SQL statement to execute
-     * @param arguments a list of objects to use as arguments with the query
-     * @param handler   a callback function to consume the exception or result set
+     * @param call     the repository call to make
+     * @param fallback the value to return if the call fails
+     * @param <T>      the type returned by the call
+     * @return the value of the call, or the fallback if it failed
      */
-    protected void executeInsert(String query, List<Object> arguments, BiConsumer<SQLException, Long> handler) {
-        try (
-                Connection connection = createDatabaseConnection();
-                PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)
-        ) {
-            setArguments(stmt, arguments);
-            stmt.executeUpdate();
-
-            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
-                if (generatedKeys.next()) {
-                    handler.accept(null, generatedKeys.getLong(1));
-                } else {
-                    throw new SQLException("Creating user failed, no ID obtained.");
-                }
-            }
+    protected <T> T callDatabase(DatabaseCall<T> call, T fallback) {
+        try {
+            return call.call();
         } catch (SQLException ex) {
             printSQLException(ex);
-            handler.accept(ex, null);
+            return fallback;
         }
     }
 
     /**
-     * lambda1: lambda to consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: run the task on the database executor and hand the result back to the JavaFX application thread
+     * lambda2: interrupt the worker when the caller cancels the future
      * <p>
-     * a wrapper around Base#executeUpdate(String, List, BiFunction) for when the caller does not need to return any
-     * value from the callback
+     * runs a database task off the JavaFX application thread. the returned future is completed on the JavaFX
+     * application thread, so its dependent stages can safely touch the scene graph. cancelling the future interrupts
+     * the worker and its result is discarded
      *
-     * @param query     a SQL statement to execute
-     * @param arguments a list of objects to use as arguments with the query
-     * @param handler   a callback function to consume the exception or result set
-     * @see Base#executeUpdate(String, List, BiFunction)
+     * @param task the blocking work to run
+     * @param <T>  the type returned by the task
+     * @return a future completed on the JavaFX application thread with the value of the task
      */
-    protected void executeUpdate(String query, List<Object> arguments, BiConsumer<SQLException, Integer> handler) {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeUpdate(query, arguments, ((BiFunction<SQLException, Integer, Void>) (ex, updates) -> {
-            handler.accept(ex, updates);
-            return null;
-        }));
-    }
-
-    /**
-     * a method that executes an update statement with the provided arguments, calls the provided callback with any
-     * exception or result set, and automatically cleans up any resources after the callback returns. additionally,
-     * whatever value is returned from the callback is returned from this function
-     *
-     * @param query     a SQL statement to execute
-     * @param arguments a list of objects to use as arguments with the query
-     * @param handler   a callback function to consume the exception or result set
-     * @param <T>       the type that is returned from the callback
-     * @return whatever value the caller returns from the callback
-     */
-    protected <T> T executeUpdate(String query, List<Object> arguments, BiFunction<SQLException, Integer, T> handler) {
-        try (
-                Connection connection = createDatabaseConnection();
-                PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS)
-        ) {
-            setArguments(stmt, arguments);
-
-            int affectedRows = stmt.executeUpdate();
-            return handler.apply(null, affectedRows);
-        } catch (SQLException ex) {
-            printSQLException(ex);
-            return handler.apply(ex, null);
-        }
+    protected <T> CompletableFuture<T> supplyAsync(Supplier<T> task) {
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        // lambda to run the task on the database executor and hand the result back to the JavaFX application thread
+        final Future<?> worker = getDatabaseExecutor().submit(() -> {
+            if (result.isDone()) return;
+            try {
+                final T value = task.get();
+                Platform.runLater(() -> result.complete(value));
+            } catch (Throwable ex) {
+                Platform.runLater(() -> result.completeExceptionally(ex));
+            }
+        });
+        // lambda to interrupt the worker when the caller cancels the future
+        result.whenComplete((value, ex) -> {
+            if (result.isCancelled()) worker.cancel(true);
+        });
+        return result;
     }
 
     /**
-     * iterates over a list of objects to use as arguments in a prepared statement
+     * lambda1: make the call on a database thread
+     * <p>
+     * the asynchronous counterpart of Base#callDatabase(DatabaseCall, Object). the call runs on a database thread and
+     * must not touch the scene graph
      *
-     * @param statement the prepared statement that will be executed
-     * @param arguments the arguments to use with the prepared statement
-     * @throws SQLException any exception that occurs when setting the arguments
+     * @param call     the repository call to make
+     * @param fallback the value to complete the future with if the call fails
+     * @param <T>      the type returned by the call
+     * @return a future completed on the JavaFX application thread with the value of the call, or the fallback
+     * @see Base#supplyAsync(Supplier)
      */
-    private void setArguments(PreparedStatement statement, List<Object> arguments) throws SQLException {
-        if (arguments != null) {
-            for (int i = 0; i < arguments.size(); i++) {
-                statement.setObject(i + 1, arguments.get(i));
-            }
-        }
+    protected <T> CompletableFuture<T> callDatabaseAsync(DatabaseCall<T> call, T fallback) {
+        // lambda to make the call on a database thread
+        return supplyAsync(() -> callDatabase(call, fallback));
     }
 
     /**
@@ -352,4 +327,15 @@ abstract public class Base {
         alert.setContentText(message);
         alert.showAndWait();
     }
+
+    /**
+     * a call to a repository, which throws any SQLException to the caller
+     *
+     * @param <T> the type returned by the call
+     * @see Base#callDatabase(DatabaseCall, Object)
+     */
+    @FunctionalInterface
+    protected interface DatabaseCall<T> {
+        T call() throws SQLException;
+    }
 }
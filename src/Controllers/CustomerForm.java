@@ -3,7 +3,6 @@ package Controllers;
 import Models.Country;
 import Models.Customer;
 import Models.Division;
-import javafx.collections.ObservableList;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -11,14 +10,11 @@ import javafx.scene.control.ComboBox;
 import javafx.scene.control.TextField;
 
 import java.net.URL;
-import java.util.Comparator;
-import java.util.Map;
 import java.util.ResourceBundle;
 import java.util.function.Function;
 
 public final class CustomerForm extends Form<Customer> implements Initializable {
-    private final Map<Long, Country> countryMap;
-    private final Map<Long, Division> divisionMap;
+    private final DivisionIndex divisionIndex;
     @FXML
     private TextField nameField;
     @FXML
@@ -33,32 +29,22 @@ public final class CustomerForm extends Form<Customer> implements Initializable
     private ComboBox<Country> countryComboBox;
 
     public CustomerForm(String windowTitle,
-                        Map<Long, Division> divisionMap,
-                        Map<Long, Country> countryMap,
+                        DivisionIndex divisionIndex,
                         FormFactory.Mode mode,
                         Customer record,
                         Function<Customer, Boolean> callback) {
         super(windowTitle, mode, record, callback);
-        this.divisionMap = divisionMap;
-        this.countryMap = countryMap;
+        this.divisionIndex = divisionIndex;
     }
 
     /**
-     * lambda1: iterate over all the key value pairs. cleaner and more readable than an anonymous class
+     * the countries are the shared, already sorted list of the division index
      *
      * @see Initializable#initialize(URL, ResourceBundle)
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
-        ObservableList<Country> countries = countryComboBox.getItems();
-        // lambda to iterate over all the key value pairs. cleaner and more readable than an anonymous class
-        divisionMap.forEach((id, division) -> {
-            Country country = countryMap.get(division.getCountryId());
-            if (!countries.contains(country)) {
-                countries.add(country);
-            }
-        });
-        countries.sort(Comparator.comparing(Country::getCountry));
+        countryComboBox.setItems(divisionIndex.getCountries());
         divisionComboBox.setDisable(true);
         super.initialize(url, resourceBundle);
     }
@@ -68,8 +54,8 @@ public final class CustomerForm extends Form<Customer> implements Initializable
      */
     @Override
     protected void setFields() {
-        final Division division = divisionMap.get(record.getDivisionId());
-        countryComboBox.getSelectionModel().select(countryMap.get(division.getCountryId()));
+        final Division division = divisionIndex.getDivision(record.getDivisionId());
+        countryComboBox.getSelectionModel().select(divisionIndex.getCountry(division.getCountryId()));
         countryComboBox.setDisable(readOnly);
         populateDivisions(null);
         divisionComboBox.getSelectionModel().select(division);
@@ -84,23 +70,17 @@ public final class CustomerForm extends Form<Customer> implements Initializable
     }
 
     /**
-     * lambda1: iterate over all the key value pairs. cleaner and more readable than an anonymous class
-     * <p>
-     * sets the division ComboBox with all the divisions for the selected country
+     * sets the division ComboBox with all the divisions for the selected country, swapping in the country's sorted
+     * list from the division index
      *
      * @param event JavaFX action event
      */
     @FXML
     private void populateDivisions(ActionEvent event) {
         final Country country = countryComboBox.getValue();
-        final ObservableList<Division> divisions = divisionComboBox.getItems();
-        divisions.clear();
-        // lambda to iterate over all the key value pairs. cleaner and more readable than an anonymous class
-        divisionMap.forEach((key, division) -> {
-            if (division.getCountryId() == country.getId()) divisions.add(division);
-        });
+        divisionComboBox.setValue(null);
+        divisionComboBox.setItems(divisionIndex.getDivisions(country == null ? 0 : country.getId()));
         divisionComboBox.setDisable(readOnly || divisionComboBox.getItems().isEmpty());
-        divisions.sort(Comparator.comparing(Division::getDivision));
     }
 
     /**
@@ -1,44 +1,52 @@
 package Controllers;
 
-import Models.Country;
 import Models.Customer;
-import Models.Division;
 import Models.Record;
+import Repositories.ReferenceData;
 
-import java.util.Map;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 public final class CustomerFormFactory extends FormFactory<Customer, CustomerForm> {
-    private Map<Long, Division> divisionMap;
-    private Map<Long, Country> countryMap;
+    private Supplier<ReferenceData> referenceData;
+    private ReferenceData indexedData;
+    private DivisionIndex divisionIndex;
 
     public CustomerFormFactory(Class<Customer> modelClass) {
         super(modelClass);
     }
 
     /**
+     * the divisions and countries are only read when a form is opened, usually from the cache preloaded at login. the
+     * division index is built once per read of the reference data and shared by every form
+     *
      * @see FormFactory#getInstance(Mode, Record, Function)
      */
     @Override
     public CustomerForm getInstance(Mode mode, Customer record, Function<Customer, Boolean> callback) {
-        return new CustomerForm(getTitle(mode), divisionMap, countryMap, mode, record, callback);
+        return new CustomerForm(getTitle(mode), getDivisionIndex(), mode, record, callback);
     }
 
     /**
-     * sets the division map that is passed to every form controller instance. it prevents excessive sql requests
+     * sets where the divisions and countries passed to every form controller instance are read from. it prevents
+     * excessive sql requests
      *
-     * @param divisionMap a map of divisionId to division models
+     * @param referenceData supplies the reference data, null if it could not be read
      */
-    public void setDivisionMap(Map<Long, Division> divisionMap) {
-        this.divisionMap = divisionMap;
+    public void setReferenceData(Supplier<ReferenceData> referenceData) {
+        this.referenceData = referenceData;
     }
 
     /**
-     * sets the country map that is passed to every form controller instance. it prevents excessive sql requests
-     *
-     * @param countryMap a map of countryId to country models
+     * @return the index of the current reference data, rebuilt only when the reference data was read again
      */
-    public void setCountryMap(Map<Long, Country> countryMap) {
-        this.countryMap = countryMap;
+    private DivisionIndex getDivisionIndex() {
+        final ReferenceData data = referenceData.get();
+        if (data == null) return DivisionIndex.empty();
+        if (data != indexedData) {
+            divisionIndex = new DivisionIndex(data.divisions, data.countries);
+            indexedData = data;
+        }
+        return divisionIndex;
     }
 }
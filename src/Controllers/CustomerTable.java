@@ -1,28 +1,112 @@
 package Controllers;
 
+import Database.Transaction;
 import Models.*;
+import Repositories.AppointmentRepository;
+import Repositories.CsvImporter;
+import Repositories.CustomerRepository;
+import Repositories.CustomerSearchIndex;
+import Repositories.RecordRepository;
+import Repositories.ReferenceData;
 import javafx.beans.property.SimpleStringProperty;
-import javafx.scene.control.Alert;
+import javafx.collections.ListChangeListener;
+import javafx.collections.transformation.FilteredList;
+import javafx.collections.transformation.SortedList;
 import javafx.scene.control.TableColumn;
 
-import java.sql.ResultSet;
+import java.net.URL;
 import java.sql.SQLException;
-import java.util.Collections;
-import java.util.HashMap;
+import java.util.*;
 
 public final class CustomerTable extends Table<Customer> {
-    private final HashMap<Long, Division> divisionMap = new HashMap<>();
-    private final HashMap<Long, Country> countryMap = new HashMap<>();
+    private final CustomerRepository customerRepository = new CustomerRepository(getQueryRunner());
+    private final AppointmentRepository appointmentRepository = new AppointmentRepository(getQueryRunner());
+    private final CustomerSearchIndex searchIndex = new CustomerSearchIndex();
+    private Main.CustomerDeletion pendingDeletion;
+    private FilteredList<Customer> filteredRows;
+    private Set<Customer> searchMatches;
 
+    /**
+     * lambda1: read the reference data the first time a form needs it
+     * lambda2: keep the search index of the rows current
+     * <p>
+     * the search index listens to the rows before the filtered view of the rows is created, so a new row is indexed and
+     * checked against the search by the time the view tests it
+     *
+     * @param eventEmitter the emitter the customer events are sent on
+     */
     public CustomerTable(Main.EventEmitter eventEmitter) {
         super(new CustomerFormFactory(Customer.class), eventEmitter);
-        ((CustomerFormFactory) formFactory).setDivisionMap(Collections.unmodifiableMap(divisionMap));
-        ((CustomerFormFactory) formFactory).setCountryMap(Collections.unmodifiableMap(countryMap));
+        // lambda to read the reference data the first time a form needs it
+        ((CustomerFormFactory) formFactory).setReferenceData(() -> callDatabase(getReferenceData()::get, null));
+        // lambda to keep the search index of the rows current
+        getRows().addListener((ListChangeListener<Customer>) change -> {
+            while (change.next()) {
+                for (Customer removed : change.getRemoved()) {
+                    searchIndex.remove(removed);
+                }
+                for (Customer added : change.getAddedSubList()) {
+                    searchIndex.add(added);
+                    if (searchMatches != null && searchIndex.matches(added, searchField.getText())) {
+                        searchMatches.add(added);
+                    }
+                }
+            }
+        });
     }
 
     /**
-     * lambda1: properly convert a division id into a displayable division name
-     * lambda2: properly convert a country id into a displayable country name
+     * lambda1: search the customers as the user types
+     * <p>
+     * displays the rows through a filtered view for the search, sorted by the columns of the table
+     *
+     * @see Table#initialize(URL, ResourceBundle)
+     */
+    @Override
+    public void initialize(URL url, ResourceBundle resourceBundle) {
+        super.initialize(url, resourceBundle);
+        filteredRows = new FilteredList<>(getRows());
+        final SortedList<Customer> sortedRows = new SortedList<>(filteredRows);
+        sortedRows.comparatorProperty().bind(tableView.comparatorProperty());
+        tableView.setItems(sortedRows);
+        searchField.setDisable(false);
+        searchField.setVisible(true);
+        // lambda to search the customers as the user types
+        searchField.textProperty().addListener((observable, oldText, newText) -> applySearch());
+    }
+
+    /**
+     * lambda1: match the customers found by the search
+     * <p>
+     * looks the words of the search field up in the prefix index and shows only the customers found, or every customer
+     * if the search field is empty
+     */
+    private void applySearch() {
+        searchMatches = searchIndex.search(searchField.getText());
+        final Set<Customer> matches = searchMatches;
+        // lambda to match the customers found by the search
+        filteredRows.setPredicate(matches == null ? null : matches::contains);
+    }
+
+    /**
+     * re-indexes a customer edited by a refresh, searching again only if the edit changed whether it matches
+     *
+     * @see Table#mergeItem(Record, Record)
+     */
+    @Override
+    protected void mergeItem(Customer resident, Customer changed) {
+        super.mergeItem(resident, changed);
+        if (resident == null) return;
+        searchIndex.update(resident);
+        if (searchMatches != null
+                && searchMatches.contains(resident) != searchIndex.matches(resident, searchField.getText())) {
+            applySearch();
+        }
+    }
+
+    /**
+     * lambda1: display the division name read with the customer
+     * lambda2: display the country name read with the customer
      *
      * @see Table#addColumns()
      */
@@ -33,98 +117,41 @@ public final class CustomerTable extends Table<Customer> {
         final TableColumn<Customer, String> postalCodeColumn = getStringColumn(Customer.class, "postalCode");
         final TableColumn<Customer, String> phoneColumn = getStringColumn(Customer.class, "phone");
         final TableColumn<Customer, String> divisionColumn = new TableColumn<>(bundle.getString("customer.division"));
-        // lambda to properly convert a division id into a displayable division name
-        divisionColumn.setCellValueFactory(param -> {
-            final Division division = divisionMap.get(param.getValue().getDivisionId());
-            return new SimpleStringProperty(division.getDivision());
-        });
+        // lambda to display the division name read with the customer
+        divisionColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getDivision()));
         final TableColumn<Customer, String> countryColumn = new TableColumn<>(bundle.getString("customer.country"));
-        // lambda to properly convert a country id into a displayable country name
-        countryColumn.setCellValueFactory(param -> {
-            final Division division = divisionMap.get(param.getValue().getDivisionId());
-            return new SimpleStringProperty(countryMap.get(division.getCountryId()).getCountry());
-        });
+        // lambda to display the country name read with the customer
+        countryColumn.setCellValueFactory(param -> new SimpleStringProperty(param.getValue().getCountry()));
         tableView.getColumns().addAll(nameColumn, addressColumn, postalCodeColumn, phoneColumn, divisionColumn, countryColumn);
     }
 
     /**
-     * lambda1-3: consume an exception and result set and allow for DRY resource cleanup
+     * the customers are read with the names of their divisions and countries, so the table doesn't need the division
+     * and country tables to render
      *
      * @see Table#populateData()
      */
     @Override
     protected final void populateData() {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT Division_ID, Division, Country_ID FROM first_level_divisions", (ex, rs) -> {
-            if (ex == null) buildDivisionMap(rs);
-        });
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT Country_ID, Country FROM countries", (ex, rs) -> {
-            if (ex == null) addCountries(rs);
-        });
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, d.Division_ID, d.Country_ID " +
-                "FROM customers c " +
-                "JOIN first_level_divisions d ON d.Division_ID = c.Division_ID;", (ex, rs) -> {
-            if (ex == null) consumeResultSet(rs);
-        });
-        executeQuery("SELECT Appointment_ID, `Start` FROM appointments " +
-                "WHERE `Start` BETWEEN NOW() AND DATE_ADD(NOW(), INTERVAL 15 MINUTE) " +
-                "AND User_ID = ?", toArray(userId), this::notifyOfAppointments);
+        loadItems(callDatabaseAsync(customerRepository::findAll, Collections.emptyList()));
     }
 
     /**
-     * consumes the result of the query for appointments within the next 15 minutes. if there are no upcoming
-     * appointments, it displays a message saying so. otherwise it displays a list of all the appointments in that
-     * timeframe.
+     * sets the division and country names of a saved customer, whose division may have been changed in the form. the
+     * names come from the reference data the form was opened with
      *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing the appointment rows
+     * @see Table#recordSaved(Record)
      */
-    private void notifyOfAppointments(SQLException ex, ResultSet rs) {
-        if (ex != null) return;
-        final StringBuilder appointments = new StringBuilder();
-        try {
-            while (rs.next()) {
-                appointments
-                        .append("\n")
-                        .append(bundle.getString("record.id"))
-                        .append(" ")
-                        .append(rs.getInt(1))
-                        .append(" ")
-                        .append(bundle.getString("appointment.at"))
-                        .append(" ")
-                        .append(Appointment.formatLocalDate(rs.getTimestamp(2).toLocalDateTime()));
-            }
-            final String alertBody = appointments.length() != 0
-                    ? bundle.getString("appointment.upcomingAppointment") + "\n" + appointments
-                    : bundle.getString("appointment.noUpcomingAppointment");
-            displayAlert(bundle.getString("appointment.alertTitle"), alertBody, Alert.AlertType.INFORMATION);
-        } catch (SQLException exception) {
-            printSQLException(exception);
-        }
-    }
-
-    private void buildDivisionMap(ResultSet rs) {
-        try {
-            while (rs.next()) {
-                final Division division = new Division(rs.getInt(1), rs.getString(2), rs.getInt(3));
-                divisionMap.put(division.getId(), division);
-            }
-        } catch (SQLException ex) {
-            printSQLException(ex);
-        }
-    }
-
-    private void addCountries(ResultSet rs) {
-        try {
-            while (rs.next()) {
-                final Country country = new Country(rs.getInt(1), rs.getString(2));
-                countryMap.put(country.getId(), country);
-            }
-        } catch (SQLException ex) {
-            printSQLException(ex);
-        }
+    @Override
+    protected void recordSaved(Customer record) {
+        searchIndex.update(record);
+        if (searchMatches != null) applySearch();
+        final ReferenceData referenceData = callDatabase(getReferenceData()::get, null);
+        if (referenceData == null) return;
+        final Division division = referenceData.divisions.get(record.getDivisionId());
+        if (division == null) return;
+        final Country country = referenceData.countries.get(division.getCountryId());
+        record.setDivisionNames(division.getDivision(), country == null ? null : country.getCountry());
     }
 
     /**
@@ -140,103 +167,70 @@ public final class CustomerTable extends Table<Customer> {
         return true;
     }
 
-    private void consumeResultSet(ResultSet rs) {
-        try {
-            while (rs.next()) {
-                tableView.getItems().add(new Customer(
-                        rs.getInt(1),
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        rs.getString(5),
-                        rs.getInt(6)
-                ));
-            }
-        } catch (SQLException ex) {
-            printSQLException(ex);
-        }
-    }
-
-    /**
-     * @see Table#getInsertStatement()
-     */
-    @Override
-    public String getInsertStatement() {
-        return "INSERT INTO customers " +
-                "(Customer_Name, Address, Postal_Code, Phone, Division_ID, Created_By, Last_Updated_By) " +
-                "VALUES (?, ?, ?, ?, ?, ?, ?)";
-    }
-
     /**
-     * @see Table#getUpdateStatement()
+     * @see Table#getRepository()
      */
     @Override
-    public String getUpdateStatement() {
-        return "UPDATE customers " +
-                "SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Updated_By = ?, Last_Update = NOW() " +
-                "WHERE Customer_ID = ?";
+    protected RecordRepository<Customer> getRepository() {
+        return customerRepository;
     }
 
     /**
-     * @see Table#getDeleteStatement()
+     * @see Table#getImporter(ReferenceData)
      */
     @Override
-    public String getDeleteStatement() {
-        return "DELETE FROM customers WHERE Customer_ID = ?";
+    protected CsvImporter<Customer> getImporter(ReferenceData referenceData) {
+        return CsvImporter.forCustomers(customerRepository, referenceData, userId);
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
-     *
-     * @see Table#deleteDependencies(Record)
+     * @see Table#deleteDependencies(Transaction, Record)
      */
     @Override
-    protected boolean deleteDependencies(Customer record) {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        return executeUpdate("DELETE FROM appointments WHERE Customer_ID = ?", toArray(record.getId()), (ex, updates) -> ex == null);
+    protected void deleteDependencies(Transaction transaction, Customer record) throws SQLException {
+        appointmentRepository.deleteByCustomer(transaction, record.getId());
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * the appointments are locked so the ones listed in the message are exactly the ones that get deleted. their ids
+     * are kept for the CustomerDeleted event so the appointment table can remove just those rows
      *
-     * @see Table#getDeletedMessage(Record)
+     * @see Table#getDeletedMessage(Transaction, Record)
      */
     @Override
-    protected String getDeletedMessage(Customer customer) {
-        final String appointments = executeQuery("SELECT Appointment_ID, Type FROM appointments WHERE Customer_ID = ?",
-                toArray(customer.getId()),
-                this::parseAppointments);
+    protected String getDeletedMessage(Transaction transaction, Customer customer) throws SQLException {
+        final List<Appointment> appointments = appointmentRepository.findByCustomerForUpdate(transaction,
+                customer.getId());
+        final Set<Long> appointmentIds = new HashSet<>();
+        for (Appointment appointment : appointments) {
+            appointmentIds.add(appointment.getId());
+        }
+        pendingDeletion = new Main.CustomerDeletion(customer.getId(), appointmentIds);
 
         String message = bundle.getString("record.deleted.message")
                 .replace("%{record}", bundle.getString("customer.customer"));
 
-        if (appointments.length() != 0) {
-            message += "\n\n" + bundle.getString("appointment.deleted") + "\n" + appointments;
+        if (!appointments.isEmpty()) {
+            message += "\n\n" + bundle.getString("appointment.deleted") + "\n" + formatAppointments(appointments);
         }
 
         return message;
     }
 
     /**
-     * parses the appointments that got deleted in association with a customer record
+     * formats the appointments that get deleted in association with a customer record
      *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing the appointment rows
+     * @param appointments the appointments of the customer
      * @return the string to display
      */
-    private String parseAppointments(SQLException ex, ResultSet rs) {
+    private String formatAppointments(List<Appointment> appointments) {
         final StringBuilder output = new StringBuilder();
-        if (ex != null) return output.toString();
-        try {
-            while (rs.next()) {
-                output.append(String.format("%s: %d, %s: %s\n",
-                        bundle.getString("record.id"),
-                        rs.getInt(1),
-                        bundle.getString("appointment.type"),
-                        rs.getString(2)));
-            }
-        } catch (SQLException exception) {
-            exception.printStackTrace();
+        for (Appointment appointment : appointments) {
+            output.append(String.format("%s: %d, %s: %s\n",
+                    bundle.getString("record.id"),
+                    appointment.getId(),
+                    bundle.getString("appointment.type"),
+                    appointment.getType()));
         }
         return output.toString();
     }
@@ -246,6 +240,8 @@ public final class CustomerTable extends Table<Customer> {
      */
     @Override
     protected void emitEvent() {
-        eventEmitter.emit(Main.Event.CustomerDeleted);
+        if (pendingDeletion == null) return;
+        eventEmitter.emit(Main.Event.CustomerDeleted, pendingDeletion);
+        pendingDeletion = null;
     }
 }
@@ -0,0 +1,91 @@
+package Controllers;
+
+import Models.Country;
+import Models.Division;
+import javafx.collections.FXCollections;
+import javafx.collections.ObservableList;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * the divisions of every country, sorted by name and built once per read of the reference data. the lists are
+ * unmodifiable and shared by every CustomerForm, so choosing a country swaps the items of the division ComboBox
+ * instead of filtering every division again
+ */
+final class DivisionIndex {
+    private final Map<Long, Division> divisions;
+    private final Map<Long, Country> countries;
+    private final ObservableList<Country> countriesWithDivisions;
+    private final Map<Long, ObservableList<Division>> divisionsByCountry = new HashMap<>();
+
+    /**
+     * lambda1: create the divisions of a country
+     *
+     * @param divisions every division by its id
+     * @param countries every country by its id
+     */
+    DivisionIndex(Map<Long, Division> divisions, Map<Long, Country> countries) {
+        this.divisions = divisions;
+        this.countries = countries;
+        final Map<Long, List<Division>> grouped = new HashMap<>();
+        for (Division division : divisions.values()) {
+            // lambda to create the divisions of a country
+            grouped.computeIfAbsent(division.getCountryId(), ignored -> new ArrayList<>()).add(division);
+        }
+        final List<Country> withDivisions = new ArrayList<>();
+        for (Map.Entry<Long, List<Division>> group : grouped.entrySet()) {
+            final Country country = countries.get(group.getKey());
+            if (country == null) continue;
+            withDivisions.add(country);
+            group.getValue().sort(Comparator.comparing(Division::getDivision));
+            divisionsByCountry.put(group.getKey(),
+                    FXCollections.unmodifiableObservableList(FXCollections.observableArrayList(group.getValue())));
+        }
+        withDivisions.sort(Comparator.comparing(Country::getCountry));
+        countriesWithDivisions = FXCollections.unmodifiableObservableList(
+                FXCollections.observableArrayList(withDivisions));
+    }
+
+    /**
+     * @return the countries that have divisions, sorted by name
+     */
+    ObservableList<Country> getCountries() {
+        return countriesWithDivisions;
+    }
+
+    /**
+     * @param countryId the id of a country
+     * @return the divisions of the country sorted by name, empty for an unknown country
+     */
+    ObservableList<Division> getDivisions(long countryId) {
+        return divisionsByCountry.getOrDefault(countryId, FXCollections.emptyObservableList());
+    }
+
+    /**
+     * @param divisionId the id of a division
+     * @return the division, null if there is no such division
+     */
+    Division getDivision(long divisionId) {
+        return divisions.get(divisionId);
+    }
+
+    /**
+     * @param countryId the id of a country
+     * @return the country, null if there is no such country
+     */
+    Country getCountry(long countryId) {
+        return countries.get(countryId);
+    }
+
+    /**
+     * @return an index without any divisions or countries, used when the reference data could not be read
+     */
+    static DivisionIndex empty() {
+        return new DivisionIndex(Collections.emptyMap(), Collections.emptyMap());
+    }
+}
@@ -1,5 +1,7 @@
 package Controllers;
 
+import Repositories.AppointmentRepository;
+import Repositories.CalendarHistogram;
 import javafx.beans.Observable;
 import javafx.beans.value.ObservableValue;
 import javafx.collections.ObservableList;
@@ -12,9 +14,11 @@ import javafx.scene.control.*;
 import javafx.stage.Stage;
 
 import java.net.URL;
-import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -24,7 +28,7 @@ public class Filter extends Base implements Initializable {
     @FXML
     private final ToggleGroup toggleGroup = new ToggleGroup();
     @FXML
-    private ComboBox<Integer> yearComboBox;
+    private ComboBox<ComboBoxValue> yearComboBox;
     @FXML
     private ComboBox<ComboBoxValue> comboBox;
     @FXML
@@ -36,6 +40,9 @@ public class Filter extends Base implements Initializable {
     private Stage stage;
     private Consumer<FilterFields> callback;
     private String fieldName;
+    private CompletableFuture<CalendarHistogram> pendingYears;
+    private CalendarHistogram histogram = new CalendarHistogram();
+    private final AppointmentRepository appointmentRepository = new AppointmentRepository(getQueryRunner());
 
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
@@ -72,79 +79,60 @@ public class Filter extends Base implements Initializable {
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: set the years once they are loaded and select the first one, which fills the month/week ComboBox
      * <p>
-     * when the filter window is opened, we query for the distinct list of years that the appointments in the database
-     * have and set them in the year ComboBox
+     * when the filter window is opened, we query for the number of appointments in every year, month and week at once
+     * and set the years in the year ComboBox. the months and weeks are then filled from memory whenever the year or the
+     * toggle changes. the query runs off the JavaFX application thread and the ComboBox shows a loading prompt until it
+     * finishes
      */
     private void setYears() {
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SElECT DISTINCT YEAR(`Start`) FROM appointments ORDER BY YEAR(`Start`)", (ex, rs) -> {
-            if (ex != null) return;
-            final ObservableList<Integer> years = yearComboBox.getItems();
-            try {
-                while (rs.next()) {
-                    years.add(rs.getInt(1));
-                }
-            } catch (SQLException exception) {
-                printSQLException(exception);
+        yearComboBox.setPromptText(bundle.getString("table.loading"));
+        final CompletableFuture<CalendarHistogram> loading = callDatabaseAsync(
+                appointmentRepository::findCalendarHistogram, new CalendarHistogram());
+        pendingYears = loading;
+        // lambda to set the years once they are loaded and select the first one, which fills the month/week ComboBox
+        loading.thenAccept(loaded -> {
+            pendingYears = null;
+            histogram = loaded;
+            yearComboBox.setPromptText(null);
+            final List<ComboBoxValue> years = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> year : loaded.getYears().entrySet()) {
+                years.add(new ComboBoxValue(Integer.toString(year.getKey()), year.getKey(), year.getValue()));
             }
+            yearComboBox.getItems().setAll(years);
+            yearComboBox.getSelectionModel().selectFirst();
         });
-        yearComboBox.getSelectionModel().selectFirst();
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
-     * <p>
-     * called when a year is selected in the ComboBox. we get a list of all weeks of that year that have an appointment.
-     * these weeks are then set in the ComboBox
+     * called when a year is selected in the ComboBox. the weeks of that year that have an appointment are set in the
+     * ComboBox with their counts
      */
     private void setWeeks() {
         final ObservableList<ComboBoxValue> items = comboBox.getItems();
         items.clear();
-        final List<Object> arguments = List.of(yearComboBox.getValue());
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT DISTINCT WEEK(`Start`) " +
-                "FROM appointments " +
-                "WHERE YEAR(`Start`) = ? " +
-                "ORDER BY WEEK(`Start`)", arguments, (ex, rs) -> {
-            if (ex != null) return;
-            try {
-                while (rs.next()) {
-                    final int week = rs.getInt(1);
-                    items.add(new ComboBoxValue(Integer.toString(week + 1), week));
-                }
-            } catch (SQLException exception) {
-                printSQLException(exception);
-            }
-        });
+        if (yearComboBox.getValue() == null) return;
+        final int year = yearComboBox.getValue().value;
+        for (Map.Entry<Integer, Integer> week : histogram.getPeriods(year, AppointmentRepository.Period.WEEK).entrySet()) {
+            items.add(new ComboBoxValue(Integer.toString(week.getKey() + 1), week.getKey(), week.getValue()));
+        }
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
-     * <p>
-     * called when a year is selected in the ComboBox. we get a list of all months of that year that have an
-     * appointment. these months are then set in the ComboBox
+     * called when a year is selected in the ComboBox. the months of that year that have an appointment are set in the
+     * ComboBox with their counts
      */
     private void setMonths() {
         final ObservableList<ComboBoxValue> items = comboBox.getItems();
         items.clear();
-        final List<Object> arguments = List.of(yearComboBox.getValue());
-        // lambda to consume an exception and result set and allow for DRY resource cleanup
-        executeQuery("SELECT DISTINCT MONTH(`Start`) " +
-                "FROM appointments " +
-                "WHERE YEAR(`Start`) = ? " +
-                "ORDER BY MONTH(`Start`)", arguments, (ex, rs) -> {
-            if (ex != null) return;
-            try {
-                while (rs.next()) {
-                    final int month = rs.getInt(1);
-                    items.add(new ComboBoxValue(bundle.getString(String.format("month.%d", month)), month));
-                }
-            } catch (SQLException exception) {
-                printSQLException(exception);
-            }
-        });
+        if (yearComboBox.getValue() == null) return;
+        final int year = yearComboBox.getValue().value;
+        for (Map.Entry<Integer, Integer> month : histogram.getPeriods(year, AppointmentRepository.Period.MONTH).entrySet()) {
+            items.add(new ComboBoxValue(bundle.getString(String.format("month.%d", month.getKey())),
+                    month.getKey(),
+                    month.getValue()));
+        }
     }
 
     /**
@@ -167,7 +155,7 @@ public class Filter extends Base implements Initializable {
      */
     @FXML
     private void handleSave(ActionEvent event) {
-        final int year = yearComboBox.getValue();
+        final int year = yearComboBox.getValue().value;
         final int fieldValue = comboBox.getValue().value;
         final FilterFields fields = new FilterFields(year, fieldName, fieldValue);
         callCallback(fields);
@@ -193,6 +181,8 @@ public class Filter extends Base implements Initializable {
      */
     @FXML
     private void handleClose(ActionEvent event) {
+        if (pendingYears != null) pendingYears.cancel(true);
+        pendingYears = null;
         if (stage != null) stage.close();
         stage = null;
     }
@@ -242,14 +232,14 @@ public class Filter extends Base implements Initializable {
 
     /**
      * an object to hold ComboBox values. there is an internal value for use in querying and a display value for the
-     * user to interact with
+     * user to interact with, followed by the number of appointments it holds
      */
     private static class ComboBoxValue {
         final public int value;
         final private String display;
 
-        public ComboBoxValue(String display, int value) {
-            this.display = display;
+        public ComboBoxValue(String display, int value, int count) {
+            this.display = String.format("%s (%d)", display, count);
             this.value = value;
         }
 
@@ -13,6 +13,7 @@ import javafx.scene.control.TextField;
 import javafx.stage.Stage;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
@@ -235,14 +236,14 @@ public abstract class Form<T extends Record> extends Base implements Initializab
     }
 
     /**
-     * uses reflection to find all the members of a record that are strings
+     * uses reflection to find all the members of a record that are strings, other than transient cached values
      *
      * @return a list of string Fields of the record
      */
     private List<Field> getStringFields() {
         final List<Field> output = new ArrayList<>();
         for (Field declaredField : record.getClass().getDeclaredFields()) {
-            if (declaredField.getType() == String.class) {
+            if (declaredField.getType() == String.class && !Modifier.isTransient(declaredField.getModifiers())) {
                 output.add(declaredField);
             }
         }
@@ -0,0 +1,236 @@
+package Controllers;
+
+import javafx.collections.ObservableList;
+import javafx.scene.Node;
+import javafx.scene.control.IndexedCell;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.skin.VirtualFlow;
+
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * loads the rows of a TableView a page at a time as the user scrolls. pages are read with keyset pagination, seeking
+ * from the first or last resident row, and the next page is requested while the user is still half a page away from
+ * the end of the loaded rows. once more than the resident cap is loaded the rows furthest from the viewport are
+ * evicted and loaded back in if the user scrolls back to them, so memory and load time stay flat as the table grows
+ *
+ * @param <T> the type of the rows, ordered by the keys the pages are read with
+ */
+final class KeysetPager<T> {
+    private final TableView<T> tableView;
+    private final ObservableList<T> items;
+    private final Comparator<T> keyOrder;
+    private final PageLoader<T> loader;
+    private final int pageSize;
+    private final int maxResident;
+    private boolean hasMoreBefore = false;
+    private boolean hasMoreAfter = false;
+    private boolean loaded = false;
+    private CompletableFuture<List<T>> pendingPage;
+    private int generation = 0;
+
+    /**
+     * @param tableView   the table to page the rows of
+     * @param items       the rows the table displays, unfiltered
+     * @param keyOrder    the order of the keys the pages are read in
+     * @param loader      reads the page before or after an anchor row
+     * @param pageSize    the number of rows read at a time
+     * @param maxResident the most rows kept in the table before rows are evicted
+     */
+    KeysetPager(TableView<T> tableView,
+                ObservableList<T> items,
+                Comparator<T> keyOrder,
+                PageLoader<T> loader,
+                int pageSize,
+                int maxResident) {
+        this.tableView = tableView;
+        this.items = items;
+        this.keyOrder = keyOrder;
+        this.loader = loader;
+        this.pageSize = pageSize;
+        this.maxResident = maxResident;
+    }
+
+    /**
+     * lambda1: create rows that report their index to the pager as they are shown
+     * <p>
+     * installs the row factory that drives the paging. the columns are made unsortable since sorting the resident
+     * window by another column would break the key order the pages are read in
+     */
+    void install() {
+        // lambda to create rows that report their index to the pager as they are shown
+        tableView.setRowFactory(view -> new TableRow<>() {
+            @Override
+            public void updateIndex(int index) {
+                super.updateIndex(index);
+                if (index >= 0) onRowShown(index);
+            }
+        });
+        for (TableColumn<T, ?> column : tableView.getColumns()) {
+            column.setSortable(false);
+        }
+    }
+
+    /**
+     * lambda1: remember whether there are more rows after the first page
+     * lambda2: interrupt the query when the first page is cancelled
+     * <p>
+     * starts paging over from the first page, discarding any page in flight. cancelling the returned future cancels
+     * the query too, so a superseded first page does not hold a connection until it finishes
+     *
+     * @return a future completed on the JavaFX application thread with the first page
+     */
+    CompletableFuture<List<T>> firstPage() {
+        if (pendingPage != null) pendingPage.cancel(true);
+        pendingPage = null;
+        hasMoreBefore = false;
+        hasMoreAfter = false;
+        loaded = false;
+        final int expected = ++generation;
+        final CompletableFuture<List<T>> query = loader.load(null, false);
+        // lambda to remember whether there are more rows after the first page
+        final CompletableFuture<List<T>> page = query.thenApply(rows -> {
+            if (expected == generation) {
+                hasMoreAfter = rows.size() >= pageSize;
+                loaded = true;
+            }
+            return rows;
+        });
+        // lambda to interrupt the query when the first page is cancelled
+        page.whenComplete((rows, ex) -> {
+            if (page.isCancelled()) query.cancel(true);
+        });
+        return page;
+    }
+
+    /**
+     * @return whether every row was read and is resident, so the rows can be filtered without reading them again
+     */
+    boolean isComplete() {
+        return loaded && !hasMoreBefore && !hasMoreAfter;
+    }
+
+    /**
+     * places a new row at its key position if it falls within the resident window. a row past either end of the window
+     * is left to be read with the page it belongs to, since it would otherwise become the anchor of the next page and
+     * the rows evicted between it and the window would never be read back in
+     *
+     * @param row the row to add
+     */
+    void add(T row) {
+        final int position = Collections.binarySearch(items, row, keyOrder);
+        final int index = position < 0 ? -position - 1 : position;
+        if (index == items.size() && hasMoreAfter) return;
+        if (index == 0 && hasMoreBefore) return;
+        items.add(index, row);
+    }
+
+    /**
+     * requests the neighbouring page when a row near either end of the resident window is shown
+     *
+     * @param index the index of the row that is shown
+     */
+    private void onRowShown(int index) {
+        if (pendingPage != null) return;
+        final int size = items.size();
+        final int prefetch = pageSize / 2;
+        if (hasMoreAfter && index >= size - prefetch) {
+            loadPage(false);
+        } else if (hasMoreBefore && index < prefetch) {
+            loadPage(true);
+        }
+    }
+
+    /**
+     * lambda1: add the page to the table unless paging started over while it was loading
+     * <p>
+     * loads the page before the first resident row or after the last one
+     *
+     * @param backward whether to load the page before the first resident row
+     */
+    private void loadPage(boolean backward) {
+        if (items.isEmpty()) return;
+        final int expected = generation;
+        final T anchor = backward ? items.get(0) : items.get(items.size() - 1);
+        final CompletableFuture<List<T>> page = loader.load(anchor, backward);
+        pendingPage = page;
+        // lambda to add the page to the table unless paging started over while it was loading
+        page.whenComplete((rows, ex) -> {
+            if (expected != generation) return;
+            pendingPage = null;
+            if (ex != null) {
+                ex.printStackTrace();
+            } else if (backward) {
+                prepend(rows);
+            } else {
+                append(rows);
+            }
+        });
+    }
+
+    /**
+     * adds a page after the resident rows, evicting rows from the top if the window is over its cap
+     *
+     * @param rows the rows of the page
+     */
+    private void append(List<T> rows) {
+        hasMoreAfter = rows.size() >= pageSize;
+        items.addAll(rows);
+        final int overflow = items.size() - maxResident;
+        if (overflow > 0) {
+            final int firstVisible = getFirstVisibleIndex();
+            items.remove(0, overflow);
+            hasMoreBefore = true;
+            tableView.scrollTo(Math.max(0, firstVisible - overflow));
+        }
+    }
+
+    /**
+     * adds a page before the resident rows, evicting rows from the bottom if the window is over its cap
+     *
+     * @param rows the rows of the page
+     */
+    private void prepend(List<T> rows) {
+        hasMoreBefore = rows.size() >= pageSize;
+        final int firstVisible = getFirstVisibleIndex();
+        items.addAll(0, rows);
+        final int overflow = items.size() - maxResident;
+        if (overflow > 0) {
+            items.remove(items.size() - overflow, items.size());
+            hasMoreAfter = true;
+        }
+        tableView.scrollTo(firstVisible + rows.size());
+    }
+
+    /**
+     * @return the index of the first row in the viewport, used to keep the viewport steady while rows are evicted
+     */
+    private int getFirstVisibleIndex() {
+        final Node flow = tableView.lookup(".virtual-flow");
+        if (flow instanceof VirtualFlow) {
+            final IndexedCell<?> cell = ((VirtualFlow<?>) flow).getFirstVisibleCell();
+            if (cell != null) return cell.getIndex();
+        }
+        return 0;
+    }
+
+    /**
+     * reads one page of rows. the returned future must complete on the JavaFX application thread
+     *
+     * @param <T> the type of the rows
+     */
+    @FunctionalInterface
+    interface PageLoader<T> {
+        /**
+         * @param anchor   the row to seek from, or null to read the first page
+         * @param backward whether to read the rows before the anchor instead of after it
+         * @return a future completed with the rows of the page in key order
+         */
+        CompletableFuture<List<T>> load(T anchor, boolean backward);
+    }
+}
@@ -1,5 +1,6 @@
 package Controllers;
 
+import Repositories.UserRepository;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
@@ -14,14 +15,10 @@ import java.io.IOException;
 import java.net.URL;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
-import java.sql.ResultSet;
-import java.sql.SQLException;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
-import java.util.ArrayList;
 import java.util.Base64;
-import java.util.List;
 import java.util.ResourceBundle;
 
 /**
@@ -34,33 +31,13 @@ public final class Login extends Base implements Initializable {
     private TextField passwordField;
     @FXML
     private Label zoneLabel;
+    private final UserRepository userRepository = new UserRepository(getQueryRunner());
 
     /**
-     * validates the password matches for the return row (if any). also hard-coded to allow for a test account
-     *
-     * @param ex a SQL exception generated by the query
-     * @param rs a result set containing 1 or 0 rows
-     * @return whether the password from the form matches the password in the database
-     */
-    private long validateUsernameAndPassword(SQLException ex, ResultSet rs) {
-        long result = -1L;
-        if (ex == null) {
-            final String username = usernameField.getText();
-            final String password = passwordField.getText();
-            try {
-                if (rs.next() && (rs.getString("Password").trim().equals(hashPassword().trim()) || (username == "test" && password == "test"))) {
-                    result = rs.getLong("User_ID");
-                }
-            } catch (SQLException exc) {
-                printSQLException(exc);
-            }
-        }
-
-        return result;
-    }
-
-    /**
-     * validates that the required fields aren't empty and then checks
+     * lambda1: check the password against the user's stored hash
+     * <p>
+     * validates that the required fields aren't empty and then checks. once the user is logged in the reference data
+     * is read in the background, so the tables and forms find it in memory
      *
      * @param event JavaFX button press event
      */
@@ -69,15 +46,13 @@ public final class Login extends Base implements Initializable {
         final String username = usernameField.getText();
         final String password = passwordField.getText();
         if (username.length() != 0 && password.length() != 0) {
-            final List<Object> arguments = new ArrayList<>();
-            arguments.add(username);
-            final long userId = executeQuery("SELECT User_ID, Password " +
-                    "FROM users " +
-                    "WHERE User_Name = ? " +
-                    "LIMIT 1", arguments, this::validateUsernameAndPassword);
+            final String passwordHash = hashPassword();
+            // lambda to check the password against the user's stored hash
+            final long userId = callDatabase(() -> userRepository.authenticate(username, passwordHash), -1L);
             logLoginAttempt(userId != -1);
             if (userId != -1) {
                 Base.userId = userId;
+                callDatabaseAsync(getReferenceData()::get, null);
                 viewController.showMainView();
             } else {
                 displayError(bundle.getString("error.invalidCredentials"));
@@ -1,17 +1,23 @@
 package Controllers;
 
+import Models.Appointment;
+import Repositories.AppointmentRepository;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.fxml.Initializable;
+import javafx.scene.control.Alert;
 import javafx.scene.control.Tab;
 import javafx.scene.control.TabPane;
 
 import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public class Main extends Base implements Initializable {
     private final EventEmitter eventEmitter = new EventEmitter();
@@ -24,14 +30,27 @@ public class Main extends Base implements Initializable {
     private boolean customerTabInitialized = false;
     private boolean appointmentTabInitialized = false;
     private CustomerTable customerTableController;
+    private ReminderScheduler reminders;
 
     /**
      * lambda1: determine which tab has been selected and display the correct data
+     * lambda2: stop reminding of the appointments deleted with a customer
+     * <p>
+     * starts the reminders of the logged in user's appointments, which also tells the user at login whether they have
+     * an appointment within the next 15 minutes
      *
      * @see Initializable#initialize(URL, ResourceBundle)
      */
     @Override
     public void initialize(URL url, ResourceBundle resourceBundle) {
+        final AppointmentRepository appointmentRepository = new AppointmentRepository(getQueryRunner());
+        reminders = new ReminderScheduler(userId, appointmentRepository::findByUserStartingBetween,
+                this::notifyOfAppointments);
+        // lambda to stop reminding of the appointments deleted with a customer
+        eventEmitter.addListener(Event.CustomerDeleted,
+                deletion -> reminders.removeAll(((CustomerDeletion) deletion).appointmentIds));
+        reminders.start();
+        runOnShutdown(reminders::stop);
         // lambda to easily determine which tab has been selected and display the correct data
         tabPane.getSelectionModel().selectedItemProperty()
                 .addListener(((observableValue, oldTab, newTab) -> populateData(newTab)));
@@ -75,7 +94,7 @@ public class Main extends Base implements Initializable {
         if (appointmentTabInitialized) return;
         appointmentTabInitialized = true;
         FXMLLoader loader = new FXMLLoader(getClass().getResource("/Views/Table.fxml"), bundle);
-        loader.setController(new AppointmentTable(customerTableController.getData(), eventEmitter));
+        loader.setController(new AppointmentTable(customerTableController.getData(), eventEmitter, reminders));
         try {
             appointmentTab.setContent(loader.load());
         } catch (IOException ex) {
@@ -84,25 +103,62 @@ public class Main extends Base implements Initializable {
         }
     }
 
+    /**
+     * if there are no upcoming appointments, it displays a message saying so. otherwise it displays a list of all the
+     * appointments in that timeframe.
+     *
+     * @param appointments the appointments that start within the next 15 minutes
+     */
+    private void notifyOfAppointments(List<Appointment> appointments) {
+        final StringBuilder upcoming = new StringBuilder();
+        for (Appointment appointment : appointments) {
+            upcoming.append("\n")
+                    .append(bundle.getString("record.id"))
+                    .append(" ")
+                    .append(appointment.getId())
+                    .append(" ")
+                    .append(bundle.getString("appointment.at"))
+                    .append(" ")
+                    .append(appointment.getFormattedStart());
+        }
+        final String alertBody = upcoming.length() != 0
+                ? bundle.getString("appointment.upcomingAppointment") + "\n" + upcoming
+                : bundle.getString("appointment.noUpcomingAppointment");
+        displayAlert(bundle.getString("appointment.alertTitle"), alertBody, Alert.AlertType.INFORMATION);
+    }
+
     public enum Event {
         CustomerDeleted
     }
 
+    /**
+     * the payload of Event#CustomerDeleted, the deleted customer and the ids of the appointments deleted with it
+     */
+    public static final class CustomerDeletion {
+        final public long customerId;
+        final public Set<Long> appointmentIds;
+
+        public CustomerDeletion(long customerId, Set<Long> appointmentIds) {
+            this.customerId = customerId;
+            this.appointmentIds = Collections.unmodifiableSet(appointmentIds);
+        }
+    }
+
     /**
      * event emitter class. used by customer table to alert the appointment table of a customer deletion so the
      * deleted appointments can be removed from the table
      */
     final public class EventEmitter implements java.util.EventListener {
-        final private HashMap<Event, List<Runnable>> eventMap = new HashMap<>();
+        final private HashMap<Event, List<Consumer<Object>>> eventMap = new HashMap<>();
 
         /**
          * registers an event listener
          *
          * @param e the event to listen to
-         * @param r a callback for when the event happens
+         * @param r a callback for when the event happens, given the payload of the event
          */
-        public void addListener(Event e, Runnable r) {
-            List<Runnable> listeners = eventMap.get(e);
+        public void addListener(Event e, Consumer<Object> r) {
+            List<Consumer<Object>> listeners = eventMap.get(e);
             if (listeners == null) {
                 listeners = new ArrayList<>();
                 eventMap.put(e, listeners);
@@ -113,13 +169,14 @@ public class Main extends Base implements Initializable {
         /**
          * calls all registered event listeners for the emitted event
          *
-         * @param e the event that happened
+         * @param e       the event that happened
+         * @param payload the details of the event passed to every listener
          */
-        public void emit(Event e) {
-            final List<Runnable> listeners = eventMap.get(e);
+        public void emit(Event e, Object payload) {
+            final List<Consumer<Object>> listeners = eventMap.get(e);
             if (listeners != null) {
-                for (Runnable runnable : listeners) {
-                    runnable.run();
+                for (Consumer<Object> listener : listeners) {
+                    listener.accept(payload);
                 }
             }
         }
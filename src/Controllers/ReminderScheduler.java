@@ -0,0 +1,229 @@
+package Controllers;
+
+import Models.Appointment;
+import javafx.application.Platform;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * reminds the user of their appointments LEAD before each one starts. the user's appointments are read a window at a
+ * time into a queue ordered by start, and a single timer is set for the first one, so the reminders fire on time all
+ * day with one query per RELOAD_INTERVAL instead of polling the database. the tables report every appointment they
+ * save, delete or merge from a refresh, so edits made in between are reminded of too
+ */
+final class ReminderScheduler {
+    static final Duration LEAD = Duration.ofMinutes(15);
+    private static final Duration RELOAD_INTERVAL = Duration.ofHours(1);
+    private final long userId;
+    private final WindowLoader loader;
+    private final Consumer<List<Appointment>> onDue;
+    private final ScheduledExecutorService executor;
+    private final PriorityQueue<Appointment> queue = new PriorityQueue<>(
+            Comparator.comparing(Appointment::getStart).thenComparingLong(Appointment::getId));
+    private final Map<Long, Appointment> queued = new HashMap<>();
+    private final Map<Long, Instant> reminded = new HashMap<>();
+    private Map<Long, Appointment> editsDuringLoad;
+    private ScheduledFuture<?> nextReminder;
+    private boolean loaded = false;
+
+    /**
+     * lambda1: run the timers on a daemon thread so they never keep the app alive
+     *
+     * @param userId the user to remind
+     * @param loader reads the user's appointments that start within a window
+     * @param onDue  called on the JavaFX application thread with the appointments that start within LEAD
+     */
+    ReminderScheduler(long userId, WindowLoader loader, Consumer<List<Appointment>> onDue) {
+        this.userId = userId;
+        this.loader = loader;
+        this.onDue = onDue;
+        // lambda to run the timers on a daemon thread so they never keep the app alive
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "appointment-reminders");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * reads the first window right away and then every RELOAD_INTERVAL. the first read always reports the
+     * appointments that start within LEAD, even if there are none, so the user is told either way at login
+     */
+    void start() {
+        executor.scheduleWithFixedDelay(this::reload, 0, RELOAD_INTERVAL.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * stops the timers, no reminders fire afterwards. called when the application stops, before the connection pool
+     * the reloads read from is closed
+     */
+    void stop() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * adds an inserted or updated appointment, or moves it if its start changed. an appointment that was reassigned to
+     * another user is dropped, and one that was already reminded of is not reminded of again unless its start changed
+     *
+     * @param appointment the appointment as it is saved in the database
+     */
+    synchronized void put(Appointment appointment) {
+        if (editsDuringLoad != null) editsDuringLoad.put(appointment.getId(), appointment.copy());
+        enqueue(appointment.copy());
+        schedule();
+    }
+
+    /**
+     * @param appointmentId the id of a deleted appointment
+     */
+    synchronized void remove(long appointmentId) {
+        if (editsDuringLoad != null) editsDuringLoad.put(appointmentId, null);
+        dequeue(appointmentId);
+        schedule();
+    }
+
+    /**
+     * @param appointmentIds the ids of deleted appointments
+     */
+    synchronized void removeAll(Collection<Long> appointmentIds) {
+        for (long appointmentId : appointmentIds) {
+            remove(appointmentId);
+        }
+    }
+
+    /**
+     * lambda1: forget the reminders of appointments that have started
+     * <p>
+     * reads the appointments that start before the next reload plus LEAD, so none is missed in between. the query runs
+     * outside the lock and the edits reported while it runs are applied again on top of its rows
+     */
+    private void reload() {
+        final Instant now = Instant.now();
+        synchronized (this) {
+            editsDuringLoad = new HashMap<>();
+        }
+        try {
+            final List<Appointment> appointments = loader.load(userId, now, now.plus(RELOAD_INTERVAL).plus(LEAD));
+            synchronized (this) {
+                queue.clear();
+                queued.clear();
+                // lambda to forget the reminders of appointments that have started
+                reminded.values().removeIf(start -> start.isBefore(now));
+                for (Appointment appointment : appointments) {
+                    enqueue(appointment);
+                }
+                for (Map.Entry<Long, Appointment> edit : editsDuringLoad.entrySet()) {
+                    if (edit.getValue() == null) {
+                        dequeue(edit.getKey());
+                    } else {
+                        enqueue(edit.getValue());
+                    }
+                }
+                final boolean first = !loaded;
+                loaded = true;
+                remindDue(first);
+            }
+        } catch (SQLException | RuntimeException ex) {
+            // an exception escaping a fixed-delay task would cancel every later reload
+            ex.printStackTrace();
+        } finally {
+            synchronized (this) {
+                editsDuringLoad = null;
+            }
+        }
+    }
+
+    /**
+     * queues an appointment of the user that has not started and was not reminded of at its current start
+     *
+     * @param appointment a copy the scheduler owns, so its start can't change while it is queued
+     */
+    private void enqueue(Appointment appointment) {
+        dequeue(appointment.getId());
+        if (appointment.getUserId() != userId) return;
+        final Instant start = toInstant(appointment);
+        if (start.isBefore(Instant.now()) || start.equals(reminded.get(appointment.getId()))) return;
+        queue.add(appointment);
+        queued.put(appointment.getId(), appointment);
+    }
+
+    private void dequeue(long appointmentId) {
+        final Appointment appointment = queued.remove(appointmentId);
+        if (appointment != null) queue.remove(appointment);
+    }
+
+    /**
+     * lambda1: report the appointments on the JavaFX application thread
+     * <p>
+     * takes the appointments that start within LEAD off the queue, reports them and sets the timer for the next one
+     *
+     * @param always whether to report even if no appointment is due
+     */
+    private synchronized void remindDue(boolean always) {
+        final Instant now = Instant.now();
+        final List<Appointment> due = new ArrayList<>();
+        while (!queue.isEmpty() && !toInstant(queue.peek()).minus(LEAD).isAfter(now)) {
+            final Appointment appointment = queue.poll();
+            queued.remove(appointment.getId());
+            final Instant start = toInstant(appointment);
+            if (start.isBefore(now)) continue;
+            reminded.put(appointment.getId(), start);
+            due.add(appointment);
+        }
+        // lambda to report the appointments on the JavaFX application thread
+        if (always || !due.isEmpty()) Platform.runLater(() -> onDue.accept(due));
+        schedule();
+    }
+
+    /**
+     * lambda1: report the appointments that are due when the timer fires
+     * <p>
+     * sets the timer for the first queued appointment, replacing the one that was set
+     */
+    private void schedule() {
+        if (nextReminder != null) nextReminder.cancel(false);
+        nextReminder = null;
+        if (queue.isEmpty() || executor.isShutdown()) return;
+        final Instant at = toInstant(queue.peek()).minus(LEAD);
+        final long delay = Math.max(0, Duration.between(Instant.now(), at).toMillis());
+        // lambda to report the appointments that are due when the timer fires
+        nextReminder = executor.schedule(() -> remindDue(false), delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param appointment an appointment
+     * @return the instant the appointment starts
+     */
+    private static Instant toInstant(Appointment appointment) {
+        return appointment.getLocalStart().toInstant();
+    }
+
+    /**
+     * reads the appointments of a user that start within a window
+     */
+    @FunctionalInterface
+    interface WindowLoader {
+        /**
+         * @param userId the user whose appointments to read
+         * @param from   the inclusive start of the window
+         * @param to     the exclusive end of the window
+         * @return the appointments that start within the window
+         * @throws SQLException any exception from the query
+         */
+        List<Appointment> load(long userId, Instant from, Instant to) throws SQLException;
+    }
+}
@@ -4,13 +4,18 @@ import Models.Appointment;
 import Models.Contact;
 import Models.Customer;
 import Models.Division;
+import Repositories.AppointmentRepository;
+import Repositories.CustomerRepository;
 import javafx.event.ActionEvent;
 import javafx.fxml.FXML;
 import javafx.scene.control.Button;
 import javafx.scene.control.TextArea;
 
-import java.sql.ResultSet;
-import java.sql.SQLException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 /**
  * Controls the contents of the reports tab. Queries and formats the data for consumption
@@ -18,33 +23,46 @@ import java.sql.SQLException;
 public class Report extends Base {
     @FXML
     private TextArea textArea;
+    private CompletableFuture<String> pendingReport;
+    private final AppointmentRepository appointmentRepository = new AppointmentRepository(getQueryRunner());
+    private final CustomerRepository customerRepository = new CustomerRepository(getQueryRunner());
 
     /**
-     * called when any of the report buttons are pushed. calles the correct report function and sets its return value
-     * to the TextArea
+     * lambda1: set the report in the TextArea once it has been built
+     * <p>
+     * called when any of the report buttons are pushed. calles the correct report function off the JavaFX application
+     * thread and sets its return value to the TextArea. a report that is still running is cancelled so only the last
+     * report requested is displayed
      *
      * @param event JavaFX action event
      */
     @FXML
     private void runReport(ActionEvent event) {
-        textArea.clear();
+        if (pendingReport != null) pendingReport.cancel(true);
+        textArea.setText(bundle.getString("report.loading"));
         final String button = ((Button) event.getSource()).getId().replace("button", "");
-        String report;
+        Supplier<String> report;
         switch (button) {
             case "1":
-                report = report1();
+                report = this::report1;
                 break;
             case "2":
-                report = report2();
+                report = this::report2;
                 break;
             case "3":
-                report = report3();
+                report = this::report3;
                 break;
             default:
                 System.out.println("unreachable unhandled report button");
-                report = "";
+                report = () -> "";
         }
-        textArea.setText(report);
+        final CompletableFuture<String> running = supplyAsync(report);
+        pendingReport = running;
+        // lambda to set the report in the TextArea once it has been built
+        running.thenAccept(text -> {
+            pendingReport = null;
+            textArea.setText(text);
+        });
     }
 
     /**
@@ -53,109 +71,36 @@ public class Report extends Base {
      * @return the string to display
      */
     private String report1() {
-        return bundle.getString("report.byMonth")
-                + ":\n"
-                + executeQuery("SELECT MONTH(`Start`) as `Month`, COUNT(*) as `Count` " +
-                "FROM appointments GROUP BY MONTH(`Start`) " +
-                "ORDER BY MONTH(`Start`)", this::parseMonthsCount)
-                + "\n"
-                + bundle.getString("report.byType")
-                + ":\n"
-                + executeQuery("SELECT `Type`, COUNT(*) as `Count` " +
-                "FROM appointments GROUP BY `Type` " +
-                "ORDER BY `Type`", this::parseTypesCount);
-
-    }
-
-    /**
-     * parses the number of appointments by month into a human-readable format
-     *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing report values
-     * @return the string to display
-     */
-    private String parseMonthsCount(SQLException ex, ResultSet rs) {
-        if (ex != null) return "";
-        final StringBuilder output = new StringBuilder();
-        try {
-            while (rs.next()) {
-                final String month;
-                month = bundle.getString(String.format("month.%d", rs.getInt(1)));
-                output.append(String.format("\t%s:\t%d\n", month, rs.getInt(2)));
-            }
-        } catch (SQLException exception) {
-            printSQLException(exception);
+        final StringBuilder output = new StringBuilder(bundle.getString("report.byMonth")).append(":\n");
+        final Map<Integer, Integer> months = callDatabase(appointmentRepository::countByMonth, Collections.emptyMap());
+        for (Map.Entry<Integer, Integer> month : months.entrySet()) {
+            output.append(String.format("\t%s:\t%d\n",
+                    bundle.getString(String.format("month.%d", month.getKey())), month.getValue()));
         }
-        return output.toString();
-    }
-
-    /**
-     * parses the number of appointments by type into a human-readable format
-     *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing report values
-     * @return the string to display
-     */
-    private String parseTypesCount(SQLException ex, ResultSet rs) {
-        if (ex != null) return "";
-        String output = "";
-        try {
-            while (rs.next()) {
-                output += String.format("\t%s:\t%d\n", rs.getString(1), rs.getInt(2));
-            }
-        } catch (SQLException exception) {
-            printSQLException(exception);
+        output.append("\n").append(bundle.getString("report.byType")).append(":\n");
+        final Map<String, Integer> types = callDatabase(appointmentRepository::countByType, Collections.emptyMap());
+        for (Map.Entry<String, Integer> type : types.entrySet()) {
+            output.append(String.format("\t%s:\t%d\n", type.getKey(), type.getValue()));
         }
-        return output;
+        return output.toString();
     }
 
     /**
-     * runs the second report to get a schedule of appointments per contact
+     * runs the second report to get a schedule of appointments per contact. each contact is listed once above all of
+     * its appointments
      *
      * @return the string to display
      */
     private String report2() {
-        return executeQuery("SELECT Appointment_ID, Title, Description, `Location`, `Type`, `Start`, `End`, " +
-                "Customer_ID, User_ID, c.Contact_ID, c.Contact_Name, c.Email " +
-                "FROM appointments a " +
-                "JOIN contacts c ON c.Contact_ID = a.Contact_ID " +
-                "ORDER BY Contact_ID, `Start`", this::parseContactsAndAppointments);
-    }
-
-    /**
-     * parses the appointments and customers into a human-readable string for display
-     *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing report values
-     * @return the string to display
-     */
-    private String parseContactsAndAppointments(SQLException ex, ResultSet rs) {
-        if (ex != null) return "";
         final StringBuilder output = new StringBuilder();
-        try {
-            while (rs.next()) {
-                long customerId = 0L;
-                final Appointment appointment = new Appointment(rs.getLong(1),
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        rs.getString(5),
-                        rs.getTimestamp(6).toLocalDateTime(),
-                        rs.getTimestamp(7).toLocalDateTime(),
-                        rs.getLong(8),
-                        rs.getLong(9),
-                        rs.getLong(10));
-                if (customerId != appointment.getCustomerId()) {
-                    customerId = appointment.getCustomerId();
-                    output.append("\n");
-                    output.append(new Contact(rs.getLong(10), rs.getString(11), rs.getString(12)).toReportString());
-                }
+        final Map<Contact, List<Appointment>> schedules = callDatabase(appointmentRepository::findAllByContact,
+                Collections.emptyMap());
+        for (Map.Entry<Contact, List<Appointment>> schedule : schedules.entrySet()) {
+            output.append("\n").append(schedule.getKey().toReportString());
+            for (Appointment appointment : schedule.getValue()) {
                 output.append(appointment.toReportString());
             }
-        } catch (SQLException exception) {
-            printSQLException(exception);
         }
-
         return output.toString();
     }
 
@@ -165,44 +110,15 @@ public class Report extends Base {
      * @return the string to display
      */
     private String report3() {
-        return executeQuery("SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, d.Division_ID, d.Country_ID, d.Division " +
-                "FROM customers c " +
-                "JOIN first_level_divisions d ON d.Division_ID = c.Division_ID " +
-                "ORDER BY d.Division, c.Customer_ID", this::parseCustomersAndDivisions);
-    }
-
-    /**
-     * parses the divisions and customers into a human-readable string for display
-     *
-     * @param ex a sql exception from the query
-     * @param rs the result set containing report values
-     * @return the string to display
-     */
-    private String parseCustomersAndDivisions(SQLException ex, ResultSet rs) {
-        if (ex != null) return "";
         final StringBuilder output = new StringBuilder();
-        try {
-            long divisionId = 0L;
-            while (rs.next()) {
-                final Customer customer = new Customer(
-                        rs.getLong(1),
-                        rs.getString(2),
-                        rs.getString(3),
-                        rs.getString(4),
-                        rs.getString(5),
-                        rs.getLong(6)
-                );
-                if (divisionId != customer.getDivisionId()) {
-                    divisionId = customer.getDivisionId();
-                    output.append("\n");
-                    output.append(new Division(rs.getLong(6), rs.getString(8), rs.getLong(7)).toReportString());
-                }
+        final Map<Division, List<Customer>> divisions = callDatabase(customerRepository::findAllByDivision,
+                Collections.emptyMap());
+        for (Map.Entry<Division, List<Customer>> division : divisions.entrySet()) {
+            output.append("\n").append(division.getKey().toReportString());
+            for (Customer customer : division.getValue()) {
                 output.append(customer.toReportString());
             }
-        } catch (SQLException exception) {
-            exception.printStackTrace();
         }
-
         return output.toString();
     }
 }
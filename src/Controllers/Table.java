@@ -1,23 +1,47 @@
 package Controllers;
 
+import Database.Schema;
+import Database.Transaction;
 import Models.Model;
 import Models.Record;
+import Repositories.Changes;
+import Repositories.CsvImporter;
+import Repositories.RecordRepository;
+import Repositories.ReferenceData;
+import javafx.animation.Animation;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
 import javafx.beans.property.SimpleLongProperty;
 import javafx.beans.property.SimpleStringProperty;
+import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.Alert;
 import javafx.scene.control.Button;
+import javafx.scene.control.Label;
 import javafx.scene.control.TableColumn;
 import javafx.scene.control.TableView;
+import javafx.scene.control.TextField;
+import javafx.stage.FileChooser;
+import javafx.util.Duration;
 
+import java.io.File;
+import java.io.IOException;
 import java.lang.reflect.Field;
 import java.net.URL;
+import java.sql.SQLException;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.ResourceBundle;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
 
 /**
@@ -32,9 +56,16 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     protected TableView<T> tableView;
     @FXML
     protected Button filterButton;
+    @FXML
+    protected TextField searchField;
     protected Form<T> formController;
     @FXML
     private Button deleteButton;
+    private final ObservableList<T> rows = FXCollections.observableArrayList();
+    private static final Duration REFRESH_INTERVAL = Duration.seconds(30);
+    private CompletableFuture<List<T>> pendingLoad;
+    private Timestamp watermark;
+    private boolean refreshing = false;
 
     public Table(FormFactory formFactory, Main.EventEmitter eventEmitter) {
         this.formFactory = formFactory;
@@ -80,10 +111,47 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
 
     /**
      * implemented by subclasses to populate the table with the data and build any maps might be necessary to properly
-     * display foreign key columns
+     * display foreign key columns. the data should be loaded with Table#loadItems(CompletableFuture) so the JavaFX
+     * application thread is never blocked on the database
      */
     protected abstract void populateData();
 
+    /**
+     * lambda1: display the loaded rows once the load finishes on the JavaFX application thread
+     * <p>
+     * replaces the rows of the table with the result of an asynchronous load. a loading placeholder is displayed until
+     * the load finishes and a load that is still in flight is cancelled so its stale rows are never displayed
+     *
+     * @param load a future completed on the JavaFX application thread with the rows to display
+     */
+    protected void loadItems(CompletableFuture<List<T>> load) {
+        cancelLoad();
+        pendingLoad = load;
+        rows.clear();
+        tableView.setPlaceholder(new Label(bundle.getString("table.loading")));
+        // lambda to display the loaded rows once the load finishes on the JavaFX application thread
+        load.whenComplete((items, ex) -> {
+            if (load.isCancelled()) return;
+            pendingLoad = null;
+            tableView.setPlaceholder(null);
+            if (ex != null) {
+                ex.printStackTrace();
+                displayError(bundle.getString("error.loadFailed"));
+            } else {
+                rows.setAll(items);
+            }
+            tableView.refresh();
+        });
+    }
+
+    /**
+     * cancels the load that is in flight, if any
+     */
+    protected void cancelLoad() {
+        if (pendingLoad != null) pendingLoad.cancel(true);
+        pendingLoad = null;
+    }
+
     /**
      * lambda1: ensures the long values are properly displayed
      *
@@ -93,15 +161,109 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     public void initialize(URL url, ResourceBundle resourceBundle) {
         filterButton.setDisable(true);
         filterButton.setVisible(false);
+        searchField.setDisable(true);
+        searchField.setVisible(false);
+        tableView.setItems(rows);
         final TableColumn<T, Long> idColumn = new TableColumn<>("ID");
         // lambda ensures the long values are properly displayed
         idColumn.setCellValueFactory(param -> new SimpleLongProperty(param.getValue().getId()).asObject());
         tableView.getColumns().add(idColumn);
         addColumns();
-        populateData();
+        startChangeTracking();
         tableView.refresh();
     }
 
+    /**
+     * lambda1: populate the table once the watermark is known
+     * lambda2: poll the database for changes
+     * <p>
+     * reads the server time before populating the table, so no change made while the rows load is missed by the first
+     * refresh, then polls for changes every REFRESH_INTERVAL
+     */
+    private void startChangeTracking() {
+        tableView.setPlaceholder(new Label(bundle.getString("table.loading")));
+        // lambda to populate the table once the watermark is known
+        callDatabaseAsync(getRepository()::findServerTime, null).thenAccept(serverTime -> {
+            watermark = serverTime;
+            populateData();
+        });
+        // lambda to poll the database for changes
+        final Timeline refreshTimeline = new Timeline(new KeyFrame(REFRESH_INTERVAL, event -> refreshChanges()));
+        refreshTimeline.setCycleCount(Animation.INDEFINITE);
+        refreshTimeline.play();
+    }
+
+    /**
+     * lambda1: read the changes since the watermark
+     * lambda2: merge the changes and move the watermark forward
+     * <p>
+     * reads only the records changed or deleted since the last refresh and merges them into the rows of the table. if
+     * the last refresh is older than the tombstones are kept, e.g. after the computer slept, the table is reloaded
+     * instead
+     */
+    private void refreshChanges() {
+        if (watermark == null || refreshing) return;
+        refreshing = true;
+        final Timestamp since = watermark;
+        // lambda to read the changes since the watermark
+        callDatabaseAsync(() -> getRepository().findChangesSince(since), null).whenComplete((changes, ex) -> {
+            refreshing = false;
+            if (changes == null) return;
+            watermark = changes.asOf;
+            if (changes.asOf.getTime() - since.getTime() > TimeUnit.DAYS.toMillis(Schema.TOMBSTONE_RETENTION_DAYS)) {
+                populateData();
+            } else {
+                mergeChanges(changes);
+            }
+        });
+    }
+
+    /**
+     * merges the changes of a refresh into the rows of the table. the changes can include records the table already
+     * holds, e.g. its own edits, so merging a record twice leaves the rows the same
+     *
+     * @param changes the records changed and deleted since the previous refresh
+     */
+    private void mergeChanges(Changes<T> changes) {
+        if (changes.isEmpty()) return;
+        final Map<Long, T> resident = new HashMap<>();
+        for (T item : rows) {
+            resident.put(item.getId(), item);
+        }
+        for (T record : changes.changed) {
+            mergeItem(resident.get(record.getId()), record);
+        }
+        removeItems(changes.deletedIds);
+        tableView.refresh();
+    }
+
+    /**
+     * lambda1: match the rows of the deleted records
+     * <p>
+     * removes the rows of records deleted elsewhere in one pass over the rows
+     *
+     * @param ids the ids of the deleted records
+     */
+    protected void removeItems(Set<Long> ids) {
+        if (ids.isEmpty()) return;
+        // lambda to match the rows of the deleted records
+        rows.removeIf(item -> ids.contains(item.getId()));
+    }
+
+    /**
+     * merges a record read by a refresh into the rows of the table
+     *
+     * @param resident the row with the same id, null if the table doesn't hold the record
+     * @param changed  the record as it is in the database
+     */
+    protected void mergeItem(T resident, T changed) {
+        if (resident != null) {
+            resident.applyChanges(changed);
+        } else {
+            addItem(changed);
+        }
+    }
+
     /**
      * opens a form in the proper mode with the given record
      *
@@ -124,9 +286,9 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: insert the record
      * <p>
-     * executes a SQL insert statement for the given record
+     * inserts the given record through the repository
      *
      * @param record the record to insert
      * @return whether the form can close or not
@@ -134,29 +296,105 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     private boolean addToDatabase(T record) {
         final boolean updatable = canUpdate(record);
         if (updatable) {
-            final List<Object> arguments = record.toValues();
-            arguments.add(userId);
-            arguments.add(userId);
-            // lambda to consume an exception and result set and allow for DRY resource cleanup
-            executeInsert(getInsertStatement(), arguments, (ex, newId) -> {
-                if (ex != null) printSQLException(ex);
-                if (newId != null) record.setId(newId);
-            });
+            // lambda to insert the record
+            final Long newId = callDatabase(() -> getRepository().insert(record, userId), null);
+            if (newId != null) {
+                record.setId(newId);
+                recordSaved(record);
+            }
         }
 
         return updatable;
     }
 
     /**
-     * @return a string with SQL insert statement for a record
+     * adds a newly saved record to the rows of the table
+     *
+     * @param record the record that was saved
+     */
+    protected void addItem(T record) {
+        rows.add(record);
+    }
+
+    /**
+     * @return the repository that writes the records of the table
      */
-    protected abstract String getInsertStatement();
+    protected abstract RecordRepository<T> getRepository();
 
     /**
      * @return a blank record to use to hold the data for a new record before it is saved to the databases
      */
     protected abstract T getNewRecord();
 
+    /**
+     * @param referenceData the reference data to resolve the names in the file against
+     * @return an importer of CSV files of the records of the table
+     */
+    protected abstract CsvImporter<T> getImporter(ReferenceData referenceData);
+
+    /**
+     * lambda1: import the file on a database thread
+     * lambda2: report the outcome of the import
+     * <p>
+     * imports a CSV file of records chosen by the user. the imported records are read into the table by a refresh run as
+     * soon as the import finishes
+     */
+    @FXML
+    private void importRecords() {
+        final FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle(bundle.getString("import.title"));
+        fileChooser.getExtensionFilters()
+                .add(new FileChooser.ExtensionFilter(bundle.getString("import.fileType"), "*.csv"));
+        final File file = fileChooser.showOpenDialog(tableView.getScene().getWindow());
+        if (file == null) return;
+        // lambda to import the file on a database thread
+        final CompletableFuture<CsvImporter.Report> importing = supplyAsync(() -> {
+            try {
+                return getImporter(getReferenceData().get()).importFrom(file.toPath());
+            } catch (IOException | SQLException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+        // lambda to report the outcome of the import
+        importing.whenComplete((report, ex) -> {
+            if (ex != null) {
+                ex.printStackTrace();
+                displayError(bundle.getString("error.importFailed"));
+                return;
+            }
+            final Alert.AlertType type = report.getErrors().isEmpty() ? Alert.AlertType.INFORMATION : Alert.AlertType.WARNING;
+            displayAlert(bundle.getString("import.title"), getImportSummary(report), type);
+            refreshChanges();
+        });
+    }
+
+    /**
+     * lists the first rows that could not be imported, since a file can have more of them than an alert can show
+     *
+     * @param report the outcome of an import
+     * @return the message summarizing the import
+     */
+    private String getImportSummary(CsvImporter.Report report) {
+        final int shownErrors = 10;
+        final List<CsvImporter.RowError> errors = report.getErrors();
+        final StringBuilder summary = new StringBuilder(bundle.getString("import.summary")
+                .replace("%{imported}", String.valueOf(report.getImported())));
+        if (errors.isEmpty()) return summary.toString();
+
+        summary.append("\n\n").append(bundle.getString("import.failed")
+                .replace("%{failed}", String.valueOf(errors.size())));
+        for (CsvImporter.RowError error : errors.subList(0, Math.min(shownErrors, errors.size()))) {
+            summary.append("\n").append(bundle.getString("import.line")
+                    .replace("%{line}", String.valueOf(error.line))
+                    .replace("%{message}", error.message));
+        }
+        if (errors.size() > shownErrors) {
+            summary.append("\n").append(bundle.getString("import.more")
+                    .replace("%{count}", String.valueOf(errors.size() - shownErrors)));
+        }
+        return summary.toString();
+    }
+
     /**
      * lambda1: opens the form and registers a callback to be called with the completed record
      * <p>
@@ -170,7 +408,7 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
                 final boolean recordHandledCorrectly = newRecord == null || addToDatabase(newRecord);
                 if (recordHandledCorrectly) {
                     if (newRecord != null && newRecord.getId() != 0) {
-                        tableView.getItems().add(newRecord);
+                        addItem(newRecord);
                     }
 
                     finalizeAction();
@@ -202,7 +440,7 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: update the record
      * <p>
      * opens the edit form and saves the changes to the database
      *
@@ -212,18 +450,24 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     protected boolean updateInDatabase(T record) {
         final boolean updatable = canUpdate(record);
         if (updatable) {
-            final List<Object> arguments = record.toValues();
-            arguments.add(userId);
-            arguments.add(record.getId());
-            // lambda to consume an exception and result set and allow for DRY resource cleanup
-            executeUpdate(getUpdateStatement(), arguments, (ex, updateCount) -> {
-                if (ex != null) printSQLException(ex);
-                if (updateCount == 1) getSelectedRecord().applyChanges(record);
-            });
+            // lambda to update the record
+            final int updateCount = callDatabase(() -> getRepository().update(record, userId), 0);
+            if (updateCount == 1) updateItem(getSelectedRecord(), record);
         }
         return updatable;
     }
 
+    /**
+     * applies a saved edit to the row of the record
+     *
+     * @param resident the row of the edited record
+     * @param changed  the record as it was saved
+     */
+    protected void updateItem(T resident, T changed) {
+        resident.applyChanges(changed);
+        recordSaved(resident);
+    }
+
     /**
      * performs SQL validations on the record to ensure it is valid
      *
@@ -232,11 +476,6 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
      */
     protected abstract boolean canUpdate(T record);
 
-    /**
-     * @return a string that contains a SQL statement to update a record
-     */
-    protected abstract String getUpdateStatement();
-
     /**
      * lambda1: opens the form and registers a callback to be called with the completed record
      * <p>
@@ -273,44 +512,65 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     }
 
     /**
-     * lambda1: consume an exception and result set and allow for DRY resource cleanup
+     * lambda1: run the statements that make up the delete on one connection
      * <p>
-     * executes a SQL statement to delete a record from the database
+     * executes the SQL statements to delete a record and its dependencies from the database in a single transaction,
+     * so a record is never left half-deleted
      *
      * @param record the record delete
+     * @return the message to display after the delete, null if the record was not deleted
      */
-    protected void deleteFromDatabase(T record) {
-        if (deleteDependencies(record)) {
-            // lambda to consume an exception and result set and allow for DRY resource cleanup
-            executeUpdate(getDeleteStatement(), toArray(record.getId()), (ex, updates) -> {
-                if (ex != null) printSQLException(ex);
-                if (updates == 1) record.setId(0);
-            });
+    protected String deleteFromDatabase(T record) {
+        // lambda to run the statements that make up the delete on one connection
+        final String message = callDatabase(() -> getQueryRunner().inTransaction(transaction -> {
+            final String deletedMessage = getDeletedMessage(transaction, record);
+            deleteDependencies(transaction, record);
+            if (getRepository().delete(transaction, record) != 1) {
+                throw new SQLException("The record no longer exists.");
+            }
+            return deletedMessage;
+        }), null);
+        if (message != null) {
+            recordDeleted(record);
+            record.setId(0);
         }
+        return message;
     }
 
     /**
-     * Deletes dependencies for the given record. called before attempting to delete the given record
+     * called after a record was inserted or updated in the database
      *
-     * @param record the record whose dependencies need to be deleted
-     * @return whether the dependent records could be deleted successfully
+     * @param record the record as it was saved
      */
-    protected abstract boolean deleteDependencies(T record);
+    protected void recordSaved(T record) {
+    }
 
     /**
-     * @return a SQL statement that can delete a record from a table
+     * called after a record was deleted from the database, before its id is cleared
+     *
+     * @param record the deleted record
      */
-    protected abstract String getDeleteStatement();
+    protected void recordDeleted(T record) {
+    }
+
+    /**
+     * Deletes dependencies for the given record. called inside the delete transaction before the given record is
+     * deleted
+     *
+     * @param transaction the transaction the record is being deleted in
+     * @param record      the record whose dependencies need to be deleted
+     * @throws SQLException any exception from deleting the dependencies, which rolls back the delete
+     */
+    protected abstract void deleteDependencies(Transaction transaction, T record) throws SQLException;
 
     @FXML
     protected void deleteRecord() {
         final T recordToDelete = getSelectedRecord();
         if (recordToDelete != null) {
             deleteButton.setDisable(true);
-            final String message = getDeletedMessage(recordToDelete);
-            deleteFromDatabase(recordToDelete);
+            final String message = deleteFromDatabase(recordToDelete);
             if (recordToDelete.getId() == 0) {
-                tableView.getItems().remove(recordToDelete);
+                rows.remove(recordToDelete);
                 tableView.refresh();
                 displayAlert(bundle.getString("record.deleted.title"), message, Alert.AlertType.INFORMATION);
                 emitEvent();
@@ -322,11 +582,29 @@ public abstract class Table<T extends Record & Model<T>> extends Base implements
     protected void emitEvent() {
     }
 
-    protected abstract String getDeletedMessage(T record);
+    /**
+     * builds the message displayed after a record is deleted. called inside the delete transaction before anything is
+     * deleted
+     *
+     * @param transaction the transaction the record is being deleted in
+     * @param record      the record that is being deleted
+     * @return the message to display
+     * @throws SQLException any exception from a query, which rolls back the delete
+     */
+    protected abstract String getDeletedMessage(Transaction transaction, T record) throws SQLException;
 
+    /**
+     * the rows the table holds. subclasses may display a view of them, e.g. a filtered one, so rows are always changed
+     * through this list rather than the items of the TableView
+     *
+     * @return the rows of the table
+     */
+    protected ObservableList<T> getRows() {
+        return rows;
+    }
 
     public ObservableList<T> getData() {
-        return tableView.getItems();
+        return rows;
     }
 
     /**
@@ -0,0 +1,471 @@
+package Database;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.NodeList;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import java.io.File;
+import java.net.URI;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * a bounded pool of database connections. connections are validated when they are borrowed after sitting idle, idle
+ * connections are evicted in the background and the time callers spend waiting for a connection is recorded
+ */
+public final class ConnectionPool implements AutoCloseable {
+    private final ConnectionSource connectionSource;
+    private final Settings settings;
+    private final QueryMetrics queryMetrics;
+    private final Deque<PooledConnection> idle = new ArrayDeque<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    private final ScheduledExecutorService evictor;
+    private final LongAdder statementCacheHits = new LongAdder();
+    private final LongAdder statementCacheMisses = new LongAdder();
+    private int totalConnections = 0;
+    private boolean closed = false;
+    private long borrowCount = 0L;
+    private long totalWaitNanos = 0L;
+    private long maxWaitNanos = 0L;
+    private long timeoutCount = 0L;
+    private long createdCount = 0L;
+    private long evictedCount = 0L;
+    private long invalidCount = 0L;
+
+    public ConnectionPool(ConnectionSource connectionSource, Settings settings, QueryMetrics queryMetrics) {
+        this.connectionSource = connectionSource;
+        this.settings = settings;
+        this.queryMetrics = queryMetrics;
+        // lambda to create a daemon thread so the evictor never keeps the app alive
+        evictor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "connection-pool-evictor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        final long period = Math.max(1000L, settings.idleTimeoutMillis / 2);
+        evictor.scheduleAtFixedRate(this::evictIdleConnections, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * parses the git ignored database.xml file in the root of the repo to build a connection string and keep the
+     * connection details private. the optional pool nodes tune the pool, any missing value uses its default.
+     * server-side prepared statements are requested so statements reused from the statement cache skip parsing and
+     * planning, and batched statements are rewritten into multi-row statements by the driver. when the optional url
+     * node is present it is used as is instead, with the optional user and password nodes, so the app can be pointed
+     * at any other JDBC database such as an embedded one seeded by DataGenerator
+     *
+     * @param inputFile the database.xml file
+     * @return a pool for the configured database
+     * @throws Exception any IO or parsing exception
+     */
+    public static ConnectionPool fromConfig(File inputFile) throws Exception {
+        final DocumentBuilderFactory dbFactory = DocumentBuilderFactory.newInstance();
+        final DocumentBuilder dBuilder = dbFactory.newDocumentBuilder();
+        final Document doc = dBuilder.parse(inputFile);
+        doc.getDocumentElement().normalize();
+
+        final ConnectionSource connectionSource;
+        final String url = getText(doc, "url", "");
+        if (url.isEmpty()) {
+            final String serverName = getText(doc, "server", null);
+            final int port = Integer.parseInt(getText(doc, "port", null));
+            final String name = getText(doc, "name", null);
+            final String user = getText(doc, "user", null);
+            final String password = getText(doc, "password", null);
+            final String query = String.format("user=%s&password=%s&useServerPrepStmts=true&rewriteBatchedStatements=true", user, password);
+            final String connectionString = new URI("jdbc:mysql", null, serverName, port, "/" + name, query, null).toString();
+            // lambda to open a connection to the configured MySQL server
+            connectionSource = () -> DriverManager.getConnection(connectionString);
+        } else {
+            final String user = getText(doc, "user", "");
+            final String password = getText(doc, "password", "");
+            // lambda to open a connection to any JDBC url, e.g. an embedded database
+            connectionSource = () -> DriverManager.getConnection(url, user, password);
+        }
+
+        final Settings settings = new Settings(
+                Integer.parseInt(getText(doc, "maxPoolSize", "4")),
+                Integer.parseInt(getText(doc, "minIdle", "1")),
+                Long.parseLong(getText(doc, "borrowTimeoutMillis", "10000")),
+                Long.parseLong(getText(doc, "idleTimeoutMillis", "600000")),
+                Long.parseLong(getText(doc, "validationIntervalMillis", "5000")),
+                Integer.parseInt(getText(doc, "statementCacheSize", "32")),
+                Integer.parseInt(getText(doc, "batchSize", "500")));
+        final QueryMetrics.Settings metricsSettings = new QueryMetrics.Settings(
+                Long.parseLong(getText(doc, "metricsSummaryIntervalSeconds", "0")),
+                getText(doc, "slowQueryLog", ""),
+                Long.parseLong(getText(doc, "slowQueryMillis", "500")));
+        return new ConnectionPool(connectionSource, settings, new QueryMetrics(metricsSettings));
+    }
+
+    /**
+     * @param doc          the parsed database.xml file
+     * @param tagName      the node to read
+     * @param defaultValue the value to use when the node is missing, null if the node is required
+     * @return the trimmed text content of the node
+     */
+    private static String getText(Document doc, String tagName, String defaultValue) {
+        final NodeList nodes = doc.getElementsByTagName(tagName);
+        if (nodes.getLength() == 0) {
+            if (defaultValue == null) throw new IllegalArgumentException("database.xml is missing <" + tagName + ">");
+            return defaultValue;
+        }
+        return nodes.item(0).getTextContent().trim();
+    }
+
+    /**
+     * borrows a connection from the pool, opening a new one if the pool is not at capacity and waiting for one to be
+     * returned otherwise. the connection goes back to the pool when it is closed
+     *
+     * @return a connection that is returned to the pool on close
+     * @throws SQLException when no connection could be obtained in time or a new connection could not be opened
+     */
+    public PooledConnection borrow() throws SQLException {
+        final long start = System.nanoTime();
+        final long deadline = start + TimeUnit.MILLISECONDS.toNanos(settings.borrowTimeoutMillis);
+        while (true) {
+            PooledConnection candidate = null;
+            boolean create = false;
+            lock.lock();
+            try {
+                while (!closed && idle.isEmpty() && totalConnections >= settings.maxPoolSize) {
+                    final long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0L) {
+                        timeoutCount++;
+                        throw new SQLTransientConnectionException(String.format(
+                                "Timed out after %d ms waiting for one of %d connections",
+                                settings.borrowTimeoutMillis, settings.maxPoolSize), "08001");
+                    }
+                    available.awaitNanos(remaining);
+                }
+                if (closed) throw new SQLException("The connection pool has been closed", "08003");
+                if (!idle.isEmpty()) {
+                    candidate = idle.pollFirst();
+                } else {
+                    totalConnections++;
+                    create = true;
+                }
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new SQLTransientConnectionException("Interrupted while waiting for a connection", "08001", ex);
+            } finally {
+                lock.unlock();
+            }
+
+            if (create) {
+                candidate = openConnection();
+            } else if (!validate(candidate)) {
+                discard(candidate, false);
+                continue;
+            }
+
+            recordBorrow(System.nanoTime() - start);
+            candidate.markBorrowed();
+            return candidate;
+        }
+    }
+
+    /**
+     * opens a brand new physical connection. the slot for it has already been reserved by the caller
+     *
+     * @return the new connection
+     * @throws SQLException any exception from the driver
+     */
+    private PooledConnection openConnection() throws SQLException {
+        try {
+            final Connection connection = connectionSource.open();
+            lock.lock();
+            try {
+                createdCount++;
+            } finally {
+                lock.unlock();
+            }
+            final StatementCache statementCache = new StatementCache(connection, settings.statementCacheSize,
+                    statementCacheHits, statementCacheMisses);
+            return new PooledConnection(this, connection, statementCache);
+        } catch (SQLException | RuntimeException ex) {
+            releaseSlot();
+            throw ex;
+        }
+    }
+
+    /**
+     * a connection that sat idle longer than the validation interval is pinged before it is handed out, so a
+     * connection dropped by the server is never given to a caller
+     *
+     * @param connection the idle connection
+     * @return whether the connection can be used
+     */
+    private boolean validate(PooledConnection connection) {
+        if (System.currentTimeMillis() - connection.getLastUsed() < settings.validationIntervalMillis) return true;
+        try {
+            final boolean valid = connection.getConnection().isValid(5);
+            if (!valid) countInvalid();
+            return valid;
+        } catch (SQLException ex) {
+            countInvalid();
+            return false;
+        }
+    }
+
+    private void countInvalid() {
+        lock.lock();
+        try {
+            invalidCount++;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void recordBorrow(long waitNanos) {
+        lock.lock();
+        try {
+            borrowCount++;
+            totalWaitNanos += waitNanos;
+            maxWaitNanos = Math.max(maxWaitNanos, waitNanos);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * called by PooledConnection#close() to hand the connection back. broken connections are thrown away instead of
+     * being reused
+     *
+     * @param connection the connection being returned
+     */
+    void release(PooledConnection connection) {
+        boolean usable;
+        try {
+            usable = !connection.isBroken() && !connection.getConnection().isClosed();
+            if (usable && !connection.getConnection().getAutoCommit()) {
+                connection.getConnection().rollback();
+                connection.getConnection().setAutoCommit(true);
+            }
+        } catch (SQLException ex) {
+            usable = false;
+        }
+
+        if (!usable) {
+            discard(connection, false);
+            return;
+        }
+
+        lock.lock();
+        try {
+            if (closed) {
+                totalConnections--;
+            } else {
+                idle.offerFirst(connection);
+                available.signal();
+                return;
+            }
+        } finally {
+            lock.unlock();
+        }
+        connection.closePhysical();
+    }
+
+    /**
+     * closes a connection that will not be reused and frees its slot in the pool
+     *
+     * @param connection the connection to throw away
+     * @param evicted    whether it was removed for being idle too long
+     */
+    private void discard(PooledConnection connection, boolean evicted) {
+        connection.closePhysical();
+        lock.lock();
+        try {
+            if (evicted) evictedCount++;
+        } finally {
+            lock.unlock();
+        }
+        releaseSlot();
+    }
+
+    private void releaseSlot() {
+        lock.lock();
+        try {
+            totalConnections--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * closes connections that have sat idle longer than the idle timeout, keeping at least the minimum number of idle
+     * connections open. the oldest connections are at the end of the deque
+     */
+    private void evictIdleConnections() {
+        final Deque<PooledConnection> evicted = new ArrayDeque<>();
+        final long cutoff = System.currentTimeMillis() - settings.idleTimeoutMillis;
+        lock.lock();
+        try {
+            final Iterator<PooledConnection> iterator = idle.descendingIterator();
+            while (iterator.hasNext() && idle.size() > settings.minIdle) {
+                final PooledConnection connection = iterator.next();
+                if (connection.getLastUsed() >= cutoff) break;
+                iterator.remove();
+                evicted.add(connection);
+            }
+        } finally {
+            lock.unlock();
+        }
+        for (PooledConnection connection : evicted) {
+            discard(connection, true);
+        }
+    }
+
+    /**
+     * @return the statement metrics of every connection in the pool
+     */
+    public QueryMetrics getQueryMetrics() {
+        return queryMetrics;
+    }
+
+    /**
+     * @return the number of rows sent to the database in each JDBC batch
+     */
+    public int getBatchSize() {
+        return settings.batchSize;
+    }
+
+    /**
+     * @return a snapshot of the pool's counters
+     */
+    public Metrics getMetrics() {
+        lock.lock();
+        try {
+            return new Metrics(totalConnections, idle.size(), borrowCount, totalWaitNanos, maxWaitNanos, timeoutCount,
+                    createdCount, evictedCount, invalidCount, statementCacheHits.sum(), statementCacheMisses.sum());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * closes every idle connection and stops the statement metrics. connections that are still borrowed are closed
+     * when they are returned
+     */
+    @Override
+    public void close() {
+        final Deque<PooledConnection> toClose;
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            toClose = new ArrayDeque<>(idle);
+            totalConnections -= idle.size();
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        evictor.shutdownNow();
+        queryMetrics.close();
+        for (PooledConnection connection : toClose) {
+            connection.closePhysical();
+        }
+    }
+
+    /**
+     * the tunable values of the pool, read from the optional nodes of database.xml
+     */
+    public static final class Settings {
+        final int maxPoolSize;
+        final int minIdle;
+        final long borrowTimeoutMillis;
+        final long idleTimeoutMillis;
+        final long validationIntervalMillis;
+        final int statementCacheSize;
+        final int batchSize;
+
+        public Settings(int maxPoolSize,
+                        int minIdle,
+                        long borrowTimeoutMillis,
+                        long idleTimeoutMillis,
+                        long validationIntervalMillis,
+                        int statementCacheSize,
+                        int batchSize) {
+            if (maxPoolSize < 1) throw new IllegalArgumentException("maxPoolSize must be at least 1");
+            this.maxPoolSize = maxPoolSize;
+            this.minIdle = Math.max(0, Math.min(minIdle, maxPoolSize));
+            this.borrowTimeoutMillis = borrowTimeoutMillis;
+            this.idleTimeoutMillis = idleTimeoutMillis;
+            this.validationIntervalMillis = validationIntervalMillis;
+            this.statementCacheSize = statementCacheSize;
+            this.batchSize = Math.max(1, batchSize);
+        }
+    }
+
+    /**
+     * an immutable snapshot of the pool's counters
+     */
+    public static final class Metrics {
+        public final int totalConnections;
+        public final int idleConnections;
+        public final long borrowCount;
+        public final long totalWaitNanos;
+        public final long maxWaitNanos;
+        public final long timeoutCount;
+        public final long createdCount;
+        public final long evictedCount;
+        public final long invalidCount;
+        public final long statementCacheHits;
+        public final long statementCacheMisses;
+
+        Metrics(int totalConnections,
+                int idleConnections,
+                long borrowCount,
+                long totalWaitNanos,
+                long maxWaitNanos,
+                long timeoutCount,
+                long createdCount,
+                long evictedCount,
+                long invalidCount,
+                long statementCacheHits,
+                long statementCacheMisses) {
+            this.totalConnections = totalConnections;
+            this.idleConnections = idleConnections;
+            this.borrowCount = borrowCount;
+            this.totalWaitNanos = totalWaitNanos;
+            this.maxWaitNanos = maxWaitNanos;
+            this.timeoutCount = timeoutCount;
+            this.createdCount = createdCount;
+            this.evictedCount = evictedCount;
+            this.invalidCount = invalidCount;
+            this.statementCacheHits = statementCacheHits;
+            this.statementCacheMisses = statementCacheMisses;
+        }
+
+        /**
+         * @return the average time a caller waited for a connection in milliseconds
+         */
+        public double getAverageWaitMillis() {
+            return borrowCount == 0 ? 0 : totalWaitNanos / (double) borrowCount / 1_000_000d;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("connections: %d (%d idle), borrows: %d, avg wait: %.3f ms, max wait: %.3f ms, " +
+                            "timeouts: %d, created: %d, evicted: %d, invalid: %d, statement cache hits: %d, misses: %d",
+                    totalConnections, idleConnections, borrowCount, getAverageWaitMillis(),
+                    maxWaitNanos / 1_000_000d, timeoutCount, createdCount, evictedCount, invalidCount,
+                    statementCacheHits, statementCacheMisses);
+        }
+    }
+}
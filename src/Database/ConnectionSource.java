@@ -0,0 +1,17 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * opens the physical connections the ConnectionPool hands out, so the pool can be pointed at the configured MySQL server
+ * or at any other JDBC database such as an embedded one for load testing
+ */
+@FunctionalInterface
+public interface ConnectionSource {
+    /**
+     * @return a new physical connection
+     * @throws SQLException any exception from the driver
+     */
+    Connection open() throws SQLException;
+}
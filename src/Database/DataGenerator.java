@@ -0,0 +1,367 @@
+package Database;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+
+/**
+ * fills an empty database with a reproducible, realistically shaped data set so that table loading, filters and reports
+ * can be benchmarked offline, e.g. against an embedded database:
+ * <p>
+ * java Database.DataGenerator jdbc:h2:./loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE sa "" 100000 5000000 42
+ * <p>
+ * customers are spread over the divisions with most of them in the U.S., a small share of busy customers book many
+ * of the appointments, and appointments fall on weekdays inside business hours without ever overlapping for one customer
+ */
+public final class DataGenerator {
+    private static final String CREATED_BY = "generator";
+    private static final ZoneId BUSINESS_ZONE = ZoneId.of("US/Eastern");
+    private static final LocalTime OPENING = LocalTime.of(8, 0);
+    private static final int SLOT_MINUTES = 15;
+    private static final int SLOTS_PER_DAY = 14 * 60 / SLOT_MINUTES;
+    private static final int PAST_DAYS = 2 * 365;
+    private static final int FUTURE_DAYS = 365;
+    private static final int BATCH_SIZE = 1_000;
+
+    private static final String[] COUNTRIES = {"U.S", "UK", "Canada"};
+    private static final double[] COUNTRY_WEIGHTS = {0.6, 0.15, 0.25};
+    private static final String[][] DIVISIONS = {
+            {"Alabama", "Arizona", "California", "Colorado", "Florida", "Georgia", "Illinois", "New York", "Ohio",
+                    "Pennsylvania", "Texas", "Virginia", "Washington"},
+            {"England", "Wales", "Scotland", "Northern Ireland"},
+            {"Alberta", "British Columbia", "Manitoba", "Nova Scotia", "Ontario", "Quebec"}};
+    private static final String[][] CONTACTS = {
+            {"Anika Costa", "acoasta@company.com"},
+            {"Daniel Garcia", "dgarcia@company.com"},
+            {"Li Lee", "llee@company.com"}};
+    private static final String[] USERS = {"test", "admin"};
+    private static final String[] FIRST_NAMES = {"Ada", "Ben", "Chloe", "Dev", "Elena", "Farah", "Gus", "Hana", "Ivan",
+            "Jun", "Kofi", "Lena", "Mateo", "Nora", "Omar", "Priya", "Quinn", "Rosa", "Sam", "Tariq", "Uma", "Vik",
+            "Wren", "Yara", "Zoe"};
+    private static final String[] LAST_NAMES = {"Adams", "Baker", "Chen", "Diaz", "Evans", "Fischer", "Garcia", "Haddad",
+            "Ito", "Jones", "Kim", "Lopez", "Martin", "Nguyen", "Okafor", "Patel", "Quinn", "Rossi", "Smith", "Tanaka",
+            "Usman", "Volkov", "Wilson", "Young", "Zhang"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Maple Rd", "High St", "Park Ln", "Cedar Ct",
+            "Elm St", "Lake Dr", "Hill Rd", "River Way"};
+    private static final String[] TYPES = {"Planning Session", "De-Briefing", "Follow-up", "Consultation", "Review"};
+    private static final double[] TYPE_WEIGHTS = {0.3, 0.25, 0.25, 0.15, 0.05};
+    private static final String[] LOCATIONS = {"Phoenix, Arizona", "White Plains, New York", "Montreal, Canada",
+            "London, England", "Online"};
+    /**
+     * appointment lengths in 15 minute slots and how often each is booked
+     */
+    private static final int[] DURATION_SLOTS = {1, 2, 3, 4, 6};
+    private static final double[] DURATION_WEIGHTS = {0.2, 0.4, 0.15, 0.2, 0.05};
+    /**
+     * the exponent that skews appointments towards a small set of busy customers. 1 is uniform
+     */
+    private static final double CUSTOMER_SKEW = 2;
+
+    private final Connection connection;
+    private final Random random;
+    private final LocalDate firstDay;
+    private final int workdays;
+
+    private DataGenerator(Connection connection, long seed) {
+        this.connection = connection;
+        random = new Random(seed);
+        firstDay = LocalDate.now(BUSINESS_ZONE).minusDays(PAST_DAYS);
+        workdays = countWorkdays(firstDay, PAST_DAYS + FUTURE_DAYS);
+    }
+
+    /**
+     * @param args the JDBC url, user, password, number of customers, number of appointments and an optional seed
+     * @throws Exception any exception from the driver
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 5) {
+            System.out.println("usage: DataGenerator <jdbc url> <user> <password> <customers> <appointments> [seed]");
+            return;
+        }
+        final int customers = Integer.parseInt(args[3]);
+        final int appointments = Integer.parseInt(args[4]);
+        final long seed = args.length > 5 ? Long.parseLong(args[5]) : 42L;
+        try (Connection connection = DriverManager.getConnection(args[0], args[1], args[2])) {
+            generate(connection, customers, appointments, seed);
+        }
+    }
+
+    /**
+     * creates the schema and fills it in one transaction, so a failed run leaves the database empty and can simply be
+     * run again. the same seed always produces the same data set
+     *
+     * @param connection   a connection to a database without any app data
+     * @param customers    the number of customers to create
+     * @param appointments the number of appointments to create
+     * @param seed         the seed for every random choice
+     * @throws SQLException          any exception from the driver
+     * @throws IllegalStateException when the database already has customers
+     */
+    public static void generate(Connection connection, int customers, int appointments, long seed) throws SQLException {
+        Schema.create(connection);
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT COUNT(*) FROM customers")) {
+            if (rs.next() && rs.getLong(1) > 0) throw new IllegalStateException("The database already has customers");
+        }
+
+        final boolean autoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+        try {
+            final DataGenerator generator = new DataGenerator(connection, seed);
+            final int[] divisionCounts = generator.insertReferenceData();
+            generator.insertCustomers(customers, divisionCounts);
+            generator.insertAppointments(customers, appointments);
+            connection.commit();
+        } catch (SQLException | RuntimeException ex) {
+            connection.rollback();
+            throw ex;
+        } finally {
+            connection.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * inserts the countries, divisions, contacts and users. the user "test" has the password "test"
+     *
+     * @return the number of divisions of each country
+     * @throws SQLException any exception from the driver
+     */
+    private int[] insertReferenceData() throws SQLException {
+        final int[] divisionCounts = new int[COUNTRIES.length];
+        try (PreparedStatement countries = connection.prepareStatement(
+                "INSERT INTO countries (Country_ID, Country, Created_By, Last_Updated_By) VALUES (?, ?, ?, ?)");
+             PreparedStatement divisions = connection.prepareStatement(
+                     "INSERT INTO first_level_divisions (Division_ID, Division, Created_By, Last_Updated_By, Country_ID) " +
+                             "VALUES (?, ?, ?, ?, ?)")) {
+            int divisionId = 1;
+            for (int country = 0; country < COUNTRIES.length; country++) {
+                countries.setInt(1, country + 1);
+                countries.setString(2, COUNTRIES[country]);
+                countries.setString(3, CREATED_BY);
+                countries.setString(4, CREATED_BY);
+                countries.addBatch();
+                for (String division : DIVISIONS[country]) {
+                    divisions.setInt(1, divisionId++);
+                    divisions.setString(2, division);
+                    divisions.setString(3, CREATED_BY);
+                    divisions.setString(4, CREATED_BY);
+                    divisions.setInt(5, country + 1);
+                    divisions.addBatch();
+                }
+                divisionCounts[country] = DIVISIONS[country].length;
+            }
+            countries.executeBatch();
+            divisions.executeBatch();
+        }
+
+        try (PreparedStatement contacts = connection.prepareStatement(
+                "INSERT INTO contacts (Contact_ID, Contact_Name, Email) VALUES (?, ?, ?)")) {
+            for (int i = 0; i < CONTACTS.length; i++) {
+                contacts.setInt(1, i + 1);
+                contacts.setString(2, CONTACTS[i][0]);
+                contacts.setString(3, CONTACTS[i][1]);
+                contacts.addBatch();
+            }
+            contacts.executeBatch();
+        }
+
+        try (PreparedStatement users = connection.prepareStatement(
+                "INSERT INTO users (User_ID, User_Name, Password, Created_By, Last_Updated_By) VALUES (?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < USERS.length; i++) {
+                users.setInt(1, i + 1);
+                users.setString(2, USERS[i]);
+                users.setString(3, hashPassword(USERS[i]));
+                users.setString(4, CREATED_BY);
+                users.setString(5, CREATED_BY);
+                users.addBatch();
+            }
+            users.executeBatch();
+        }
+        return divisionCounts;
+    }
+
+    /**
+     * inserts customers with ids 1 to the given count, each in a division picked by the country weights
+     *
+     * @param count          the number of customers
+     * @param divisionCounts the number of divisions of each country
+     * @throws SQLException any exception from the driver
+     */
+    private void insertCustomers(int count, int[] divisionCounts) throws SQLException {
+        final int[] firstDivision = new int[divisionCounts.length];
+        for (int i = 1; i < divisionCounts.length; i++) {
+            firstDivision[i] = firstDivision[i - 1] + divisionCounts[i - 1];
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO customers " +
+                "(Customer_ID, Customer_Name, Address, Postal_Code, Phone, Division_ID, Created_By, Last_Updated_By) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+            for (int id = 1; id <= count; id++) {
+                final int country = pick(COUNTRY_WEIGHTS);
+                statement.setInt(1, id);
+                statement.setString(2, FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " +
+                        LAST_NAMES[random.nextInt(LAST_NAMES.length)]);
+                statement.setString(3, (1 + random.nextInt(9_999)) + " " + STREETS[random.nextInt(STREETS.length)]);
+                statement.setString(4, String.format("%05d", random.nextInt(100_000)));
+                statement.setString(5, String.format("%03d-%03d-%04d",
+                        200 + random.nextInt(800), random.nextInt(1_000), random.nextInt(10_000)));
+                statement.setInt(6, firstDivision[country] + 1 + random.nextInt(divisionCounts[country]));
+                statement.setString(7, CREATED_BY);
+                statement.setString(8, CREATED_BY);
+                statement.addBatch();
+                if (id % BATCH_SIZE == 0) flush(statement, "customers", id);
+            }
+            finish(statement, "customers", count, count);
+        }
+    }
+
+    /**
+     * spreads the appointments over the customers with a skew towards a few busy ones, then books each customer's
+     * appointments into free business hour slots in start order so that none of them overlap
+     *
+     * @param customers the number of customers
+     * @param count     the number of appointments
+     * @throws SQLException any exception from the driver
+     */
+    private void insertAppointments(int customers, int count) throws SQLException {
+        if (customers == 0) return;
+        final int[] perCustomer = new int[customers];
+        for (int i = 0; i < count; i++) {
+            perCustomer[(int) (customers * Math.pow(random.nextDouble(), CUSTOMER_SKEW))]++;
+        }
+
+        final int totalSlots = workdays * SLOTS_PER_DAY;
+        final LocalDate[] days = new LocalDate[workdays];
+        LocalDate day = firstDay;
+        for (int i = 0; i < workdays; i++) {
+            while (isWeekend(day)) day = day.plusDays(1);
+            days[i] = day;
+            day = day.plusDays(1);
+        }
+
+        try (PreparedStatement statement = connection.prepareStatement("INSERT INTO appointments " +
+                "(Title, Description, `Location`, `Type`, `Start`, `End`, Customer_ID, User_ID, Contact_ID, " +
+                "Created_By, Last_Updated_By) " +
+                "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)")) {
+            int inserted = 0;
+            for (int customer = 0; customer < customers; customer++) {
+                final int booked = perCustomer[customer];
+                if (booked == 0) continue;
+                final int[] starts = new int[booked];
+                for (int i = 0; i < booked; i++) {
+                    starts[i] = random.nextInt(totalSlots);
+                }
+                Arrays.sort(starts);
+
+                int nextFree = 0;
+                for (int start : starts) {
+                    final int duration = DURATION_SLOTS[pick(DURATION_WEIGHTS)];
+                    int slot = Math.max(start, nextFree);
+                    if (slot % SLOTS_PER_DAY + duration > SLOTS_PER_DAY) slot = (slot / SLOTS_PER_DAY + 1) * SLOTS_PER_DAY;
+                    // a customer booked solid until the end of the window gets fewer appointments
+                    if (slot + duration > totalSlots) break;
+                    nextFree = slot + duration;
+
+                    final String type = TYPES[pick(TYPE_WEIGHTS)];
+                    statement.setString(1, type + " #" + (inserted + 1));
+                    statement.setString(2, type + " with customer " + (customer + 1));
+                    statement.setString(3, LOCATIONS[random.nextInt(LOCATIONS.length)]);
+                    statement.setString(4, type);
+                    statement.setTimestamp(5, toUtc(days[slot / SLOTS_PER_DAY], slot % SLOTS_PER_DAY));
+                    statement.setTimestamp(6, toUtc(days[slot / SLOTS_PER_DAY], slot % SLOTS_PER_DAY + duration));
+                    statement.setInt(7, customer + 1);
+                    statement.setInt(8, 1 + random.nextInt(USERS.length));
+                    statement.setInt(9, 1 + random.nextInt(CONTACTS.length));
+                    statement.setString(10, CREATED_BY);
+                    statement.setString(11, CREATED_BY);
+                    statement.addBatch();
+                    if (++inserted % BATCH_SIZE == 0) flush(statement, "appointments", inserted);
+                }
+            }
+            finish(statement, "appointments", inserted, count);
+        }
+    }
+
+    /**
+     * sends the pending batch and reports progress every 100 batches
+     */
+    private void flush(PreparedStatement statement, String table, int done) throws SQLException {
+        statement.executeBatch();
+        if (done % (BATCH_SIZE * 100) == 0) System.out.printf("%s: %d%n", table, done);
+    }
+
+    /**
+     * sends the last batch and reports how many rows were inserted
+     */
+    private void finish(PreparedStatement statement, String table, int done, int requested) throws SQLException {
+        statement.executeBatch();
+        System.out.printf("%s: %d of %d inserted%n", table, done, requested);
+    }
+
+    /**
+     * @param weights the probability of each index, summing to 1
+     * @return a random index chosen by the weights
+     */
+    private int pick(double[] weights) {
+        double remaining = random.nextDouble();
+        for (int i = 0; i < weights.length - 1; i++) {
+            remaining -= weights[i];
+            if (remaining < 0) return i;
+        }
+        return weights.length - 1;
+    }
+
+    /**
+     * appointments are stored in UTC like the app does
+     *
+     * @param day  a workday
+     * @param slot the 15 minute slot of the business day
+     * @return the UTC timestamp of the slot
+     */
+    private static Timestamp toUtc(LocalDate day, int slot) {
+        return Timestamp.valueOf(day.atTime(OPENING.plusMinutes((long) slot * SLOT_MINUTES))
+                .atZone(BUSINESS_ZONE)
+                .withZoneSameInstant(ZoneOffset.UTC)
+                .toLocalDateTime());
+    }
+
+    private static boolean isWeekend(LocalDate day) {
+        return day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY;
+    }
+
+    private static int countWorkdays(LocalDate from, int days) {
+        int workdays = 0;
+        for (int i = 0; i < days; i++) {
+            if (!isWeekend(from.plusDays(i))) workdays++;
+        }
+        return workdays;
+    }
+
+    /**
+     * hashes a password the same way the log in form does
+     */
+    private static String hashPassword(String password) {
+        try {
+            final byte[] messageDigest = MessageDigest.getInstance("SHA-512")
+                    .digest(password.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(messageDigest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
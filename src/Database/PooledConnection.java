@@ -0,0 +1,95 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * a connection borrowed from the ConnectionPool. closing it hands the underlying connection back to the pool instead of
+ * closing it, so it can be used in try-with-resources the same way a plain connection is
+ */
+public final class PooledConnection implements AutoCloseable {
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final StatementCache statementCache;
+    private long lastUsed = System.currentTimeMillis();
+    private boolean borrowed = false;
+    private boolean broken = false;
+
+    PooledConnection(ConnectionPool pool, Connection connection, StatementCache statementCache) {
+        this.pool = pool;
+        this.connection = connection;
+        this.statementCache = statementCache;
+    }
+
+    /**
+     * @return the underlying JDBC connection. it must not be closed directly
+     */
+    public Connection getConnection() {
+        return connection;
+    }
+
+    /**
+     * gets a prepared statement for the SQL text from this connection's statement cache, flagging the connection as
+     * broken if the driver reports that the connection itself failed. the statement is owned by the cache and must
+     * not be closed by the caller, but any result set it produces must be
+     *
+     * @param sql               the statement to prepare
+     * @param autoGeneratedKeys one of Statement#RETURN_GENERATED_KEYS or Statement#NO_GENERATED_KEYS
+     * @return the prepared statement
+     * @throws SQLException any exception from the driver
+     */
+    public PreparedStatement prepareStatement(String sql, int autoGeneratedKeys) throws SQLException {
+        try {
+            return statementCache.prepare(sql, autoGeneratedKeys);
+        } catch (SQLException ex) {
+            checkBroken(ex);
+            throw ex;
+        }
+    }
+
+    /**
+     * marks the connection as broken when the exception has a connection exception SQL state (class 08) so the pool
+     * throws it away instead of reusing it
+     *
+     * @param ex an exception thrown while using this connection
+     */
+    public void checkBroken(SQLException ex) {
+        final String state = ex.getSQLState();
+        if (state != null && state.startsWith("08")) broken = true;
+    }
+
+    boolean isBroken() {
+        return broken;
+    }
+
+    long getLastUsed() {
+        return lastUsed;
+    }
+
+    void markBorrowed() {
+        borrowed = true;
+    }
+
+    /**
+     * closes the physical connection, ignoring any error since the connection is being thrown away
+     */
+    void closePhysical() {
+        statementCache.clear();
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * returns the connection to the pool. calling it more than once has no effect
+     */
+    @Override
+    public void close() {
+        if (!borrowed) return;
+        borrowed = false;
+        lastUsed = System.currentTimeMillis();
+        pool.release(this);
+    }
+}
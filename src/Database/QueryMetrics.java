@@ -0,0 +1,227 @@
+package Database;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.BufferedWriter;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * records the latency, rows, errors and connection acquire time of every statement, keyed by the normalized statement
+ * text. the statistics of each statement are registered as an MXBean, a summary can be printed periodically and
+ * statements slower than a threshold are appended to a slow query log along with the shape of their bind parameters
+ */
+public final class QueryMetrics implements AutoCloseable {
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final int MAX_NORMALIZED_CACHE_SIZE = 1_000;
+    private final Map<String, String> normalizedCache = new ConcurrentHashMap<>();
+    private final Map<String, StatementStats> statements = new ConcurrentHashMap<>();
+    private final Settings settings;
+    private final ScheduledExecutorService summaryDumper;
+    private BufferedWriter slowQueryWriter;
+
+    public QueryMetrics(Settings settings) {
+        this.settings = settings;
+        if (settings.summaryIntervalSeconds > 0) {
+            // lambda to create a daemon thread so the summary never keeps the app alive
+            summaryDumper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "query-metrics-summary");
+                thread.setDaemon(true);
+                return thread;
+            });
+            summaryDumper.scheduleAtFixedRate(this::printSummary, settings.summaryIntervalSeconds,
+                    settings.summaryIntervalSeconds, TimeUnit.SECONDS);
+        } else {
+            summaryDumper = null;
+        }
+    }
+
+    /**
+     * collapses whitespace and replaces literals with placeholders so that statements differing only in literal
+     * values or formatting share one set of statistics
+     *
+     * @param sql the statement text as executed
+     * @return the normalized statement text
+     */
+    public String normalize(String sql) {
+        final String cached = normalizedCache.get(sql);
+        if (cached != null) return cached;
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+        if (normalized.endsWith(";")) normalized = normalized.substring(0, normalized.length() - 1).trim();
+        if (normalizedCache.size() < MAX_NORMALIZED_CACHE_SIZE) normalizedCache.put(sql, normalized);
+        return normalized;
+    }
+
+    /**
+     * records one execution of a statement
+     *
+     * @param sql          the statement text as executed
+     * @param arguments    the bind parameters, only their shape is ever logged
+     * @param acquireNanos the time spent waiting for a pooled connection
+     * @param executeNanos the time spent executing the statement and reading its results
+     * @param rows         the rows returned or affected
+     * @param failed       whether the statement threw an exception
+     */
+    public void record(String sql, List<?> arguments, long acquireNanos, long executeNanos, long rows, boolean failed) {
+        final String key = normalize(sql);
+        StatementStats stats = statements.get(key);
+        if (stats == null) {
+            final StatementStats created = new StatementStats(key);
+            stats = statements.putIfAbsent(key, created);
+            if (stats == null) {
+                stats = created;
+                register(created);
+            }
+        }
+        stats.record(acquireNanos, executeNanos, rows, failed);
+
+        if (settings.slowQueryLog != null && executeNanos >= settings.slowQueryMillis * 1_000_000L) {
+            logSlowQuery(key, arguments, acquireNanos, executeNanos, rows, failed);
+        }
+    }
+
+    /**
+     * registers the statistics of a statement as an MXBean. the statistics are still recorded if registration fails
+     *
+     * @param stats the statistics of a statement
+     */
+    private void register(StatementStats stats) {
+        try {
+            final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(stats, getObjectName(stats));
+        } catch (Exception ex) {
+            System.out.println("Failed to register statement metrics:");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    private static ObjectName getObjectName(StatementStats stats) throws Exception {
+        return new ObjectName("SchedulingApp:type=Statement,name=" + ObjectName.quote(stats.getSql()));
+    }
+
+    /**
+     * @param arguments the bind parameters of a statement
+     * @return the type of each parameter, and the length of strings, without any of the values
+     */
+    static String describeParameters(List<?> arguments) {
+        if (arguments == null) return "[]";
+        final List<String> shapes = new ArrayList<>(arguments.size());
+        for (Object argument : arguments) {
+            if (argument == null) {
+                shapes.add("null");
+            } else if (argument instanceof String) {
+                shapes.add(String.format("String(%d)", ((String) argument).length()));
+            } else {
+                shapes.add(argument.getClass().getSimpleName());
+            }
+        }
+        return shapes.toString();
+    }
+
+    /**
+     * appends a slow statement to the slow query log with an ISO timestamp, its timings, row count and parameter shapes
+     */
+    private synchronized void logSlowQuery(String sql,
+                                           List<?> arguments,
+                                           long acquireNanos,
+                                           long executeNanos,
+                                           long rows,
+                                           boolean failed) {
+        final String time = DateTimeFormatter.ISO_DATE_TIME.format(OffsetDateTime.now().truncatedTo(ChronoUnit.MILLIS));
+        try {
+            if (slowQueryWriter == null) slowQueryWriter = new BufferedWriter(new FileWriter(settings.slowQueryLog, true));
+            slowQueryWriter.write("time: " + time + "\t");
+            slowQueryWriter.write(String.format("duration: %.3f ms\t", executeNanos / 1_000_000d));
+            slowQueryWriter.write(String.format("acquire: %.3f ms\t", acquireNanos / 1_000_000d));
+            slowQueryWriter.write("rows: " + rows + "\t");
+            slowQueryWriter.write("failed: " + failed + "\t");
+            slowQueryWriter.write("parameters: " + describeParameters(arguments) + "\t");
+            slowQueryWriter.write("sql: " + sql);
+            slowQueryWriter.newLine();
+            slowQueryWriter.flush();
+        } catch (IOException ex) {
+            System.out.println("Failed to log slow query:");
+            System.out.println(ex.getMessage());
+        }
+    }
+
+    /**
+     * @return the statistics of every statement, the statements with the most total time first
+     */
+    public List<StatementStatsMXBean> getStatements() {
+        final List<StatementStats> sorted = new ArrayList<>(statements.values());
+        sorted.sort(Comparator.comparingLong(StatementStats::getTotalNanos).reversed());
+        return new ArrayList<>(sorted);
+    }
+
+    /**
+     * prints the statistics of every statement, the statements with the most total time first
+     */
+    public void printSummary() {
+        final List<StatementStatsMXBean> sorted = getStatements();
+        if (sorted.isEmpty()) return;
+        System.out.println("Statement metrics:");
+        for (StatementStatsMXBean stats : sorted) {
+            System.out.println("\t" + stats);
+        }
+    }
+
+    /**
+     * stops the periodic summary, closes the slow query log and unregisters the MXBeans
+     */
+    @Override
+    public synchronized void close() {
+        if (summaryDumper != null) summaryDumper.shutdownNow();
+        if (slowQueryWriter != null) {
+            try {
+                slowQueryWriter.close();
+            } catch (IOException ignored) {
+            }
+            slowQueryWriter = null;
+        }
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        for (StatementStats stats : statements.values()) {
+            try {
+                server.unregisterMBean(getObjectName(stats));
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * the tunable values of the metrics, read from the optional nodes of database.xml
+     */
+    public static final class Settings {
+        final long summaryIntervalSeconds;
+        final String slowQueryLog;
+        final long slowQueryMillis;
+
+        /**
+         * @param summaryIntervalSeconds how often to print the summary, 0 to never print it periodically
+         * @param slowQueryLog           the file to append slow statements to, null to disable the slow query log
+         * @param slowQueryMillis        statements taking at least this long are logged
+         */
+        public Settings(long summaryIntervalSeconds, String slowQueryLog, long slowQueryMillis) {
+            this.summaryIntervalSeconds = summaryIntervalSeconds;
+            this.slowQueryLog = slowQueryLog == null || slowQueryLog.isEmpty() ? null : slowQueryLog;
+            this.slowQueryMillis = slowQueryMillis;
+        }
+    }
+}
@@ -0,0 +1,384 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * runs statements on connections borrowed from a ConnectionPool and records them with its statement metrics. it has no
+ * JavaFX dependency, so the repositories built on it can be used by the controllers, batch jobs and benchmarks alike.
+ * exceptions are thrown to the caller instead of being handled here
+ */
+public final class QueryRunner {
+    private static final long NOT_ACQUIRED = Long.MIN_VALUE;
+    private static final String BATCH_PREFIX = "/* batch */ ";
+    private final PoolProvider poolProvider;
+
+    /**
+     * @param poolProvider supplies the pool to borrow connections from, called for every statement so the pool can be
+     *                     created lazily or replaced
+     */
+    public QueryRunner(PoolProvider poolProvider) {
+        this.poolProvider = poolProvider;
+    }
+
+    /**
+     * @param pool the pool to borrow connections from
+     */
+    public QueryRunner(ConnectionPool pool) {
+        this(() -> pool);
+    }
+
+    /**
+     * runs a query and reads its rows before the connection is returned to the pool
+     *
+     * @param query     the query to execute
+     * @param arguments a list of objects to use as arguments with the query, may be null
+     * @param reader    reads the rows of the result set
+     * @param <R>       the type the rows are read into
+     * @return the value from the reader
+     * @throws SQLException any exception from the query or the reader
+     */
+    public <R> R query(String query, List<?> arguments, ResultSetReader<R> reader) throws SQLException {
+        final ConnectionPool pool = poolProvider.get();
+        final long start = System.nanoTime();
+        long acquired = NOT_ACQUIRED;
+        long rowCount = 0L;
+        boolean failed = true;
+        try (PooledConnection connection = pool.borrow()) {
+            acquired = System.nanoTime();
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.NO_GENERATED_KEYS);
+            setArguments(stmt, arguments);
+
+            try (ResultSet rs = stmt.executeQuery()) {
+                final CountingResultSet counter = new CountingResultSet(rs);
+                final R value = reader.read(counter);
+                rowCount = counter.getRows();
+                failed = false;
+                return value;
+            }
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            record(pool, query, arguments, start, acquired, rowCount, failed);
+        }
+    }
+
+    /**
+     * inserts a new record
+     *
+     * @param query     a SQL insert statement to execute
+     * @param arguments a list of objects to use as arguments with the query
+     * @return the generated id of the new record
+     * @throws SQLException any exception from the statement or when no id was generated
+     */
+    public long insert(String query, List<?> arguments) throws SQLException {
+        final ConnectionPool pool = poolProvider.get();
+        final long start = System.nanoTime();
+        long acquired = NOT_ACQUIRED;
+        long rowCount = 0L;
+        boolean failed = true;
+        try (PooledConnection connection = pool.borrow()) {
+            acquired = System.nanoTime();
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+            setArguments(stmt, arguments);
+            final int affectedRows = stmt.executeUpdate();
+
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    final long newId = generatedKeys.getLong(1);
+                    rowCount = affectedRows;
+                    failed = false;
+                    return newId;
+                }
+            }
+            throw new SQLException("Creating record failed, no ID obtained.");
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            record(pool, query, arguments, start, acquired, rowCount, failed);
+        }
+    }
+
+    /**
+     * executes an update or delete statement
+     *
+     * @param query     a SQL statement to execute
+     * @param arguments a list of objects to use as arguments with the query
+     * @return the number of affected rows
+     * @throws SQLException any exception from the statement
+     */
+    public int update(String query, List<?> arguments) throws SQLException {
+        final ConnectionPool pool = poolProvider.get();
+        final long start = System.nanoTime();
+        long acquired = NOT_ACQUIRED;
+        long rowCount = 0L;
+        boolean failed = true;
+        try (PooledConnection connection = pool.borrow()) {
+            acquired = System.nanoTime();
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.NO_GENERATED_KEYS);
+            setArguments(stmt, arguments);
+            final int affectedRows = stmt.executeUpdate();
+            rowCount = affectedRows;
+            failed = false;
+            return affectedRows;
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            record(pool, query, arguments, start, acquired, rowCount, failed);
+        }
+    }
+
+    /**
+     * runs a unit of work on a single connection inside one transaction. the transaction is committed once after the
+     * work returns, or rolled back if any statement fails, so the work is applied completely or not at all
+     *
+     * @param work the statements to run, given a Transaction to run them with
+     * @param <R>  the type returned by the work
+     * @return the value returned by the work
+     * @throws SQLException any exception from the work, after the transaction has been rolled back
+     */
+    public <R> R inTransaction(UnitOfWork<R> work) throws SQLException {
+        final ConnectionPool pool = poolProvider.get();
+        try (PooledConnection connection = pool.borrow()) {
+            final Connection jdbcConnection = connection.getConnection();
+            jdbcConnection.setAutoCommit(false);
+            try {
+                final R result = work.run(new Transaction(pool, connection));
+                jdbcConnection.commit();
+                return result;
+            } catch (SQLException ex) {
+                connection.checkBroken(ex);
+                jdbcConnection.rollback();
+                throw ex;
+            } catch (RuntimeException ex) {
+                rollback(jdbcConnection, ex);
+                throw ex;
+            } finally {
+                jdbcConnection.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * inserts a record for every row of arguments using JDBC batches, collecting the generated ids in the order of the
+     * rows. the rows are sent in chunks of the configured batch size and all of them are committed in a single
+     * transaction, so either every row is inserted or none are
+     *
+     * @param query a SQL insert statement to execute
+     * @param rows  a list of arguments for each record to insert
+     * @return the generated ids
+     * @throws SQLException any exception from the driver, after the transaction has been rolled back
+     */
+    public List<Long> batchInsert(String query, List<? extends List<?>> rows) throws SQLException {
+        final List<Long> generatedKeys = new ArrayList<>(rows.size());
+        if (rows.isEmpty()) return generatedKeys;
+        runBatch(query, rows, generatedKeys);
+        return generatedKeys;
+    }
+
+    /**
+     * adds every row to the batch of a single prepared statement and executes it each time the batch size is reached
+     * inside one transaction. the transaction is rolled back if any chunk fails
+     *
+     * @param query         a SQL statement to execute
+     * @param rows          a list of arguments for each execution of the statement
+     * @param generatedKeys a list to add the generated ids to
+     * @return the update count of each row
+     * @throws SQLException any exception from the driver
+     */
+    private int[] runBatch(String query, List<? extends List<?>> rows, List<Long> generatedKeys) throws SQLException {
+        final ConnectionPool pool = poolProvider.get();
+        final long start = System.nanoTime();
+        long acquired = NOT_ACQUIRED;
+        long rowCount = 0L;
+        boolean failed = true;
+        try (PooledConnection connection = pool.borrow()) {
+            acquired = System.nanoTime();
+            final int batchSize = pool.getBatchSize();
+            final int[] counts = new int[rows.size()];
+            final Connection jdbcConnection = connection.getConnection();
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+            jdbcConnection.setAutoCommit(false);
+            try {
+                int executed = 0;
+                for (int i = 0; i < rows.size(); i++) {
+                    setArguments(stmt, rows.get(i));
+                    stmt.addBatch();
+                    if ((i + 1) % batchSize != 0 && i != rows.size() - 1) continue;
+
+                    final int[] chunk = stmt.executeBatch();
+                    System.arraycopy(chunk, 0, counts, executed, chunk.length);
+                    executed += chunk.length;
+                    try (ResultSet keys = stmt.getGeneratedKeys()) {
+                        while (keys.next()) {
+                            generatedKeys.add(keys.getLong(1));
+                        }
+                    }
+                }
+                jdbcConnection.commit();
+            } catch (SQLException ex) {
+                stmt.clearBatch();
+                connection.checkBroken(ex);
+                jdbcConnection.rollback();
+                generatedKeys.clear();
+                throw ex;
+            } catch (RuntimeException ex) {
+                rollback(jdbcConnection, ex);
+                stmt.clearBatch();
+                generatedKeys.clear();
+                throw ex;
+            } finally {
+                jdbcConnection.setAutoCommit(true);
+            }
+            rowCount = countBatchRows(counts);
+            failed = false;
+            return counts;
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            record(pool, BATCH_PREFIX + query, rows.get(0), start, acquired, rowCount, failed);
+        }
+    }
+
+    /**
+     * rolls back a transaction that failed with an unchecked exception. restoring autocommit would commit the partial
+     * work, so the rollback has to happen first, and a failure of the rollback is attached to the original exception
+     *
+     * @param jdbcConnection the connection of the transaction
+     * @param cause          the exception the transaction failed with
+     */
+    private static void rollback(Connection jdbcConnection, RuntimeException cause) {
+        try {
+            jdbcConnection.rollback();
+        } catch (SQLException ex) {
+            cause.addSuppressed(ex);
+        }
+    }
+
+    /**
+     * @param counts the update counts of a batch
+     * @return the total rows affected, counting each row the driver could not report on as one
+     */
+    private static long countBatchRows(int[] counts) {
+        long rows = 0L;
+        for (int count : counts) {
+            rows += count == Statement.SUCCESS_NO_INFO ? 1 : Math.max(0, count);
+        }
+        return rows;
+    }
+
+    /**
+     * records the timings of a statement with the statement metrics of the pool. it is called once per statement from
+     * a finally block, so a statement whose reader throws or whose result set fails to close is counted as one failure
+     *
+     * @param pool      the pool the statement ran on
+     * @param query     the statement that was executed
+     * @param arguments the arguments it was executed with
+     * @param start     the System#nanoTime() before a connection was requested
+     * @param acquired  the System#nanoTime() once a connection was acquired, NOT_ACQUIRED if none was
+     * @param rows      the rows returned or affected
+     * @param failed    whether the statement threw an exception
+     */
+    static void record(ConnectionPool pool,
+                       String query,
+                       List<?> arguments,
+                       long start,
+                       long acquired,
+                       long rows,
+                       boolean failed) {
+        final long end = System.nanoTime();
+        final long executing = acquired == NOT_ACQUIRED ? end : acquired;
+        pool.getQueryMetrics().record(query, arguments, executing - start, end - executing, rows, failed);
+    }
+
+    /**
+     * iterates over a list of objects to use as arguments in a prepared statement. dates are stored in UTC, so an
+     * Instant or a LocalDateTime, which is taken to already be in UTC, is bound as a timestamp in UTC instead of being
+     * formatted into a string the server has to parse
+     *
+     * @param statement the prepared statement that will be executed
+     * @param arguments the arguments to use with the prepared statement
+     * @throws SQLException any exception that occurs when setting the arguments
+     */
+    static void setArguments(PreparedStatement statement, List<?> arguments) throws SQLException {
+        if (arguments != null) {
+            for (int i = 0; i < arguments.size(); i++) {
+                final Object argument = arguments.get(i);
+                if (argument instanceof LocalDateTime) {
+                    setUTC(statement, i + 1, ((LocalDateTime) argument).toInstant(ZoneOffset.UTC));
+                } else if (argument instanceof Instant) {
+                    setUTC(statement, i + 1, (Instant) argument);
+                } else {
+                    statement.setObject(i + 1, argument);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param statement the prepared statement that will be executed
+     * @param index     the index of the parameter
+     * @param instant   the instant to bind as a timestamp in UTC
+     * @throws SQLException any exception that occurs when setting the argument
+     */
+    private static void setUTC(PreparedStatement statement, int index, Instant instant) throws SQLException {
+        statement.setTimestamp(index, Timestamp.from(instant), newUTCCalendar());
+    }
+
+    /**
+     * reads a timestamp stored in UTC into the local user's time zone, the inverse of binding a date as an argument
+     *
+     * @param rs     the result set positioned on a row
+     * @param column the index of the column
+     * @return the date and time in the local user's time zone, null if the column is null
+     * @throws SQLException any exception reading the column
+     */
+    public static LocalDateTime getLocalDateTime(ResultSet rs, int column) throws SQLException {
+        final Instant instant = getInstant(rs, column);
+        return instant == null ? null : LocalDateTime.ofInstant(instant, ZoneId.systemDefault());
+    }
+
+    /**
+     * @param rs     the result set positioned on a row
+     * @param column the index of the column
+     * @return the instant of a timestamp stored in UTC, null if the column is null
+     * @throws SQLException any exception reading the column
+     */
+    public static Instant getInstant(ResultSet rs, int column) throws SQLException {
+        final Timestamp timestamp = rs.getTimestamp(column, newUTCCalendar());
+        return timestamp == null ? null : timestamp.toInstant();
+    }
+
+    /**
+     * drivers may change the calendar they are given, so each call gets its own
+     *
+     * @return a calendar in UTC
+     */
+    private static Calendar newUTCCalendar() {
+        return Calendar.getInstance(TimeZone.getTimeZone(ZoneOffset.UTC));
+    }
+
+    /**
+     * supplies the pool a QueryRunner borrows its connections from
+     */
+    @FunctionalInterface
+    public interface PoolProvider {
+        ConnectionPool get() throws SQLException;
+    }
+}
@@ -0,0 +1,15 @@
+package Database;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * reads the rows of a result set before its connection is returned to the pool. any exception is thrown to the caller
+ * and aborts a surrounding transaction
+ *
+ * @param <R> the type the rows are read into
+ */
+@FunctionalInterface
+public interface ResultSetReader<R> {
+    R read(ResultSet rs) throws SQLException;
+}
@@ -0,0 +1,172 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * the tables the app reads and writes. the DDL is MySQL and is also accepted by embedded engines running in a MySQL
+ * compatibility mode (e.g. H2 with MODE=MySQL), so a local stand-in database can be created for load testing
+ */
+public final class Schema {
+    /**
+     * the version Schema#migrate(Connection) brings a database up to. it has to be raised whenever a migration step is
+     * added, or databases already at the previous version will skip the step
+     */
+    public static final int VERSION = 1;
+
+    private static final String AUDIT_COLUMNS = "Create_Date DATETIME DEFAULT CURRENT_TIMESTAMP, " +
+            "Created_By VARCHAR(50), " +
+            "Last_Update TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP, " +
+            "Last_Updated_By VARCHAR(50)";
+
+    /**
+     * a tombstone for every deleted customer and appointment, so clients refreshing from a Last_Update watermark can
+     * find the rows that no longer exist without comparing every id
+     */
+    private static final String CREATE_DELETED_RECORDS = "CREATE TABLE IF NOT EXISTS deleted_records (" +
+            "Table_Name VARCHAR(50) NOT NULL, " +
+            "Record_ID INT NOT NULL, " +
+            "Deleted_At TIMESTAMP DEFAULT CURRENT_TIMESTAMP, " +
+            "INDEX idx_deleted_records_deleted_at (Deleted_At))";
+
+    /**
+     * how long tombstones are kept. a client that has not refreshed for longer than this reloads everything instead
+     */
+    public static final int TOMBSTONE_RETENTION_DAYS = 1;
+
+    private static final List<String> CREATE_STATEMENTS = Collections.unmodifiableList(Arrays.asList(
+            "CREATE TABLE IF NOT EXISTS countries (" +
+                    "Country_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Country VARCHAR(50), " +
+                    AUDIT_COLUMNS + ")",
+            "CREATE TABLE IF NOT EXISTS first_level_divisions (" +
+                    "Division_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Division VARCHAR(50), " +
+                    AUDIT_COLUMNS + ", " +
+                    "Country_ID INT NOT NULL, " +
+                    "CONSTRAINT fk_division_country FOREIGN KEY (Country_ID) REFERENCES countries (Country_ID))",
+            "CREATE TABLE IF NOT EXISTS customers (" +
+                    "Customer_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Customer_Name VARCHAR(50), " +
+                    "Address VARCHAR(100), " +
+                    "Postal_Code VARCHAR(50), " +
+                    "Phone VARCHAR(50), " +
+                    AUDIT_COLUMNS + ", " +
+                    "Division_ID INT NOT NULL, " +
+                    "CONSTRAINT fk_customer_division FOREIGN KEY (Division_ID) REFERENCES first_level_divisions (Division_ID))",
+            "CREATE TABLE IF NOT EXISTS users (" +
+                    "User_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "User_Name VARCHAR(50) UNIQUE, " +
+                    "Password TEXT, " +
+                    AUDIT_COLUMNS + ")",
+            "CREATE TABLE IF NOT EXISTS contacts (" +
+                    "Contact_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Contact_Name VARCHAR(50), " +
+                    "Email VARCHAR(50))",
+            "CREATE TABLE IF NOT EXISTS appointments (" +
+                    "Appointment_ID INT AUTO_INCREMENT PRIMARY KEY, " +
+                    "Title VARCHAR(50), " +
+                    "Description VARCHAR(50), " +
+                    "`Location` VARCHAR(50), " +
+                    "`Type` VARCHAR(50), " +
+                    "`Start` DATETIME, " +
+                    "`End` DATETIME, " +
+                    AUDIT_COLUMNS + ", " +
+                    "Customer_ID INT NOT NULL, " +
+                    "User_ID INT NOT NULL, " +
+                    "Contact_ID INT NOT NULL, " +
+                    "CONSTRAINT fk_appointment_customer FOREIGN KEY (Customer_ID) REFERENCES customers (Customer_ID), " +
+                    "CONSTRAINT fk_appointment_user FOREIGN KEY (User_ID) REFERENCES users (User_ID), " +
+                    "CONSTRAINT fk_appointment_contact FOREIGN KEY (Contact_ID) REFERENCES contacts (Contact_ID))",
+            CREATE_DELETED_RECORDS));
+
+    /**
+     * the indexes added after the original schema, created by Schema#migrate(Connection) when they are missing. each
+     * entry is the table, the index name and the indexed columns
+     */
+    private static final List<List<String>> INDEXES = Collections.unmodifiableList(Arrays.asList(
+            Arrays.asList("appointments", "idx_appointments_last_update", "Last_Update"),
+            Arrays.asList("customers", "idx_customers_last_update", "Last_Update"),
+            Arrays.asList("appointments", "idx_appointments_start", "`Start`, Appointment_ID"),
+            Arrays.asList("appointments", "idx_appointments_customer_start", "Customer_ID, `Start`"),
+            Arrays.asList("appointments", "idx_appointments_user_start", "User_ID, `Start`")));
+
+    private Schema() {
+    }
+
+    /**
+     * creates any of the tables that don't exist yet
+     *
+     * @param connection a connection to the database to create the tables in
+     * @throws SQLException any exception from the driver
+     */
+    public static void create(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            for (String create : CREATE_STATEMENTS) {
+                statement.execute(create);
+            }
+        }
+        migrate(connection);
+    }
+
+    /**
+     * brings a database created from an older version of the schema up to date by creating the missing tables and
+     * indexes. the version is recorded in schema_version once the steps succeed, so a database that is up to date
+     * costs a single query and the metadata probes and DDL run once per database rather than on every connect. every
+     * step is idempotent, so a migration interrupted before the version is recorded is simply run again
+     *
+     * @param connection a connection to the database to migrate
+     * @throws SQLException any exception from the driver
+     */
+    public static void migrate(Connection connection) throws SQLException {
+        if (readVersion(connection) >= VERSION) return;
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(CREATE_DELETED_RECORDS);
+            for (List<String> index : INDEXES) {
+                if (!hasIndex(connection, index.get(0), index.get(1))) {
+                    statement.execute(String.format("CREATE INDEX %s ON %s (%s)",
+                            index.get(1), index.get(0), index.get(2)));
+                }
+            }
+            statement.execute("CREATE TABLE IF NOT EXISTS schema_version (Version INT NOT NULL)");
+            statement.execute("DELETE FROM schema_version");
+            statement.execute("INSERT INTO schema_version (Version) VALUES (" + VERSION + ")");
+        }
+    }
+
+    /**
+     * @param connection a connection to the database
+     * @return the version recorded by the last migration, 0 if the database was never migrated
+     */
+    private static int readVersion(Connection connection) {
+        try (Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT MAX(Version) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        } catch (SQLException ex) {
+            // the table is created by the first migration
+            return 0;
+        }
+    }
+
+    /**
+     * @param connection a connection to the database
+     * @param table      the table to look in
+     * @param index      the name of the index
+     * @return whether the table has the index
+     * @throws SQLException any exception reading the metadata
+     */
+    private static boolean hasIndex(Connection connection, String table, String index) throws SQLException {
+        try (ResultSet indexes = connection.getMetaData().getIndexInfo(connection.getCatalog(), null, table,
+                false, true)) {
+            while (indexes.next()) {
+                if (index.equalsIgnoreCase(indexes.getString("INDEX_NAME"))) return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,113 @@
+package Database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * a least-recently-used cache of prepared statements for a single connection, keyed by the SQL text and whether
+ * generated keys are returned. the app only uses a small fixed set of statements, so after warming up every query
+ * skips preparing its statement again
+ */
+final class StatementCache {
+    private final Connection connection;
+    private final int capacity;
+    private final LongAdder hits;
+    private final LongAdder misses;
+    private final LinkedHashMap<Key, PreparedStatement> statements;
+
+    /**
+     * @param connection the connection the statements are prepared on
+     * @param capacity   the maximum number of open statements to keep
+     * @param hits       a counter shared by every cache in the pool
+     * @param misses     a counter shared by every cache in the pool
+     */
+    StatementCache(Connection connection, int capacity, LongAdder hits, LongAdder misses) {
+        this.connection = connection;
+        this.capacity = Math.max(1, capacity);
+        this.hits = hits;
+        this.misses = misses;
+        statements = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, PreparedStatement> eldest) {
+                if (size() <= StatementCache.this.capacity) return false;
+                closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    /**
+     * returns the cached statement for the SQL text and generated keys mode, preparing and caching a new one on a miss.
+     * a cached statement has its parameters cleared before it is returned
+     *
+     * @param sql               the statement to prepare
+     * @param autoGeneratedKeys one of Statement#RETURN_GENERATED_KEYS or Statement#NO_GENERATED_KEYS
+     * @return an open prepared statement that the caller must not close
+     * @throws SQLException any exception from the driver
+     */
+    PreparedStatement prepare(String sql, int autoGeneratedKeys) throws SQLException {
+        final Key key = new Key(sql, autoGeneratedKeys);
+        final PreparedStatement cached = statements.get(key);
+        if (cached != null) {
+            if (!cached.isClosed()) {
+                hits.increment();
+                cached.clearParameters();
+                return cached;
+            }
+            statements.remove(key);
+        }
+
+        misses.increment();
+        final PreparedStatement statement = connection.prepareStatement(sql, autoGeneratedKeys);
+        statements.put(key, statement);
+        return statement;
+    }
+
+    /**
+     * closes and forgets every cached statement
+     */
+    void clear() {
+        for (PreparedStatement statement : statements.values()) {
+            closeQuietly(statement);
+        }
+        statements.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement statement) {
+        try {
+            statement.close();
+        } catch (SQLException ignored) {
+        }
+    }
+
+    /**
+     * the cache key, a statement prepared for generated keys is different from one that isn't
+     */
+    private static final class Key {
+        final String sql;
+        final int autoGeneratedKeys;
+
+        Key(String sql, int autoGeneratedKeys) {
+            this.sql = sql;
+            this.autoGeneratedKeys = autoGeneratedKeys;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return autoGeneratedKeys == key.autoGeneratedKeys && sql.equals(key.sql);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(sql, autoGeneratedKeys);
+        }
+    }
+}
@@ -0,0 +1,165 @@
+package Database;
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * the latency histogram, row count, error count and connection acquire time of one normalized SQL statement. it is
+ * updated concurrently by every database thread without locking
+ */
+final class StatementStats implements StatementStatsMXBean {
+    /**
+     * the upper bound of each latency bucket in microseconds. the last bucket holds everything slower
+     */
+    private static final long[] BUCKET_BOUNDS_MICROS = {100, 250, 500, 1_000, 2_500, 5_000, 10_000, 25_000, 50_000,
+            100_000, 250_000, 500_000, 1_000_000, 2_500_000, 5_000_000, 10_000_000, Long.MAX_VALUE};
+    private final String sql;
+    private final LongAdder[] buckets = new LongAdder[BUCKET_BOUNDS_MICROS.length];
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAdder totalAcquireNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+
+    StatementStats(String sql) {
+        this.sql = sql;
+        for (int i = 0; i < buckets.length; i++) {
+            buckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * records one execution of the statement
+     *
+     * @param acquireNanos the time spent waiting for a connection
+     * @param executeNanos the time spent executing the statement and reading its results
+     * @param rowCount     the rows returned or affected
+     * @param failed       whether the statement threw an exception
+     */
+    void record(long acquireNanos, long executeNanos, long rowCount, boolean failed) {
+        executions.increment();
+        if (failed) errors.increment();
+        if (rowCount > 0) rows.add(rowCount);
+        totalNanos.add(executeNanos);
+        totalAcquireNanos.add(acquireNanos);
+        maxNanos.accumulate(executeNanos);
+        final long micros = executeNanos / 1_000;
+        int bucket = 0;
+        while (micros > BUCKET_BOUNDS_MICROS[bucket]) bucket++;
+        buckets[bucket].increment();
+    }
+
+    /**
+     * estimates a percentile as the upper bound of the bucket it falls in, capped at the slowest execution
+     *
+     * @param percentile the percentile between 0 and 1
+     * @return the estimated latency in milliseconds
+     */
+    private double percentileMillis(double percentile) {
+        final long count = executions.sum();
+        if (count == 0) return 0;
+        final long target = (long) Math.ceil(count * percentile);
+        long seen = 0;
+        for (int i = 0; i < buckets.length; i++) {
+            seen += buckets[i].sum();
+            if (seen >= target) {
+                return i == buckets.length - 1
+                        ? getMaxMillis()
+                        : Math.min(BUCKET_BOUNDS_MICROS[i] / 1_000d, getMaxMillis());
+            }
+        }
+        return getMaxMillis();
+    }
+
+    /**
+     * @return the total time spent executing the statement, used to rank statements in the summary
+     */
+    long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    @Override
+    public String getSql() {
+        return sql;
+    }
+
+    @Override
+    public long getExecutionCount() {
+        return executions.sum();
+    }
+
+    @Override
+    public long getErrorCount() {
+        return errors.sum();
+    }
+
+    @Override
+    public long getRowCount() {
+        return rows.sum();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        final long count = executions.sum();
+        return count == 0 ? 0 : totalNanos.sum() / (double) count / 1_000_000d;
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return maxNanos.get() / 1_000_000d;
+    }
+
+    @Override
+    public double getP50Millis() {
+        return percentileMillis(0.5);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return percentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return percentileMillis(0.99);
+    }
+
+    @Override
+    public double getMeanAcquireMillis() {
+        final long count = executions.sum();
+        return count == 0 ? 0 : totalAcquireNanos.sum() / (double) count / 1_000_000d;
+    }
+
+    @Override
+    public String getHistogram() {
+        final StringBuilder output = new StringBuilder();
+        for (int i = 0; i < buckets.length; i++) {
+            if (output.length() != 0) output.append(", ");
+            output.append(i == buckets.length - 1 ? "slower" : "<=" + BUCKET_BOUNDS_MICROS[i] / 1_000d + "ms")
+                    .append(": ")
+                    .append(buckets[i].sum());
+        }
+        return output.toString();
+    }
+
+    @Override
+    public void reset() {
+        for (LongAdder bucket : buckets) {
+            bucket.reset();
+        }
+        executions.reset();
+        errors.reset();
+        rows.reset();
+        totalNanos.reset();
+        totalAcquireNanos.reset();
+        maxNanos.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%8d calls %6d errors %9d rows | mean %8.3f p95 %8.3f max %8.3f acquire %7.3f ms | %s",
+                getExecutionCount(), getErrorCount(), getRowCount(), getMeanMillis(), getP95Millis(), getMaxMillis(),
+                getMeanAcquireMillis(), sql);
+    }
+}
@@ -0,0 +1,45 @@
+package Database;
+
+/**
+ * the statistics of one normalized SQL statement, exposed through JMX
+ */
+public interface StatementStatsMXBean {
+    /**
+     * @return the normalized statement text the statistics are kept for
+     */
+    String getSql();
+
+    long getExecutionCount();
+
+    long getErrorCount();
+
+    /**
+     * @return the total number of rows returned or affected by every execution
+     */
+    long getRowCount();
+
+    double getMeanMillis();
+
+    double getMaxMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    /**
+     * @return the average time spent waiting for a pooled connection before the statement could run
+     */
+    double getMeanAcquireMillis();
+
+    /**
+     * @return the latency histogram, one "upper bound: count" entry per bucket
+     */
+    String getHistogram();
+
+    /**
+     * clears the statistics
+     */
+    void reset();
+}
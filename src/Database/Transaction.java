@@ -0,0 +1,109 @@
+package Database;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * runs statements on the connection of a unit of work. exceptions are thrown instead of being handled, so the first
+ * failure rolls back the whole unit of work
+ *
+ * @see QueryRunner#inTransaction(UnitOfWork)
+ */
+public final class Transaction {
+    private final ConnectionPool pool;
+    private final PooledConnection connection;
+
+    Transaction(ConnectionPool pool, PooledConnection connection) {
+        this.pool = pool;
+        this.connection = connection;
+    }
+
+    /**
+     * @param query     the query to execute
+     * @param arguments a list of objects to use as arguments with the query
+     * @param reader    reads the rows of the result set
+     * @param <R>       the type the rows are read into
+     * @return the value from the reader
+     * @throws SQLException any exception from the query or the reader
+     */
+    public <R> R executeQuery(String query, List<?> arguments, ResultSetReader<R> reader) throws SQLException {
+        final long start = System.nanoTime();
+        long rowCount = 0L;
+        boolean failed = true;
+        try {
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.NO_GENERATED_KEYS);
+            QueryRunner.setArguments(stmt, arguments);
+            try (ResultSet rs = stmt.executeQuery()) {
+                final CountingResultSet counter = new CountingResultSet(rs);
+                final R value = reader.read(counter);
+                rowCount = counter.getRows();
+                failed = false;
+                return value;
+            }
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            QueryRunner.record(pool, query, arguments, start, start, rowCount, failed);
+        }
+    }
+
+    /**
+     * @param query     a SQL statement to execute
+     * @param arguments a list of objects to use as arguments with the query
+     * @return the number of affected rows
+     * @throws SQLException any exception from the statement
+     */
+    public int executeUpdate(String query, List<?> arguments) throws SQLException {
+        final long start = System.nanoTime();
+        long rowCount = 0L;
+        boolean failed = true;
+        try {
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.NO_GENERATED_KEYS);
+            QueryRunner.setArguments(stmt, arguments);
+            final int affectedRows = stmt.executeUpdate();
+            rowCount = affectedRows;
+            failed = false;
+            return affectedRows;
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            QueryRunner.record(pool, query, arguments, start, start, rowCount, failed);
+        }
+    }
+
+    /**
+     * @param query     a SQL insert statement to execute
+     * @param arguments a list of objects to use as arguments with the query
+     * @return the generated id of the new record
+     * @throws SQLException any exception from the statement or when no id was generated
+     */
+    public long executeInsert(String query, List<?> arguments) throws SQLException {
+        final long start = System.nanoTime();
+        long rowCount = 0L;
+        boolean failed = true;
+        try {
+            final PreparedStatement stmt = connection.prepareStatement(query, Statement.RETURN_GENERATED_KEYS);
+            QueryRunner.setArguments(stmt, arguments);
+            final int affectedRows = stmt.executeUpdate();
+            try (ResultSet generatedKeys = stmt.getGeneratedKeys()) {
+                if (generatedKeys.next()) {
+                    final long newId = generatedKeys.getLong(1);
+                    rowCount = affectedRows;
+                    failed = false;
+                    return newId;
+                }
+            }
+            throw new SQLException("Creating record failed, no ID obtained.");
+        } catch (SQLException | RuntimeException ex) {
+            failed = true;
+            throw ex;
+        } finally {
+            QueryRunner.record(pool, query, arguments, start, start, rowCount, failed);
+        }
+    }
+}
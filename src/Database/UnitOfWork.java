@@ -0,0 +1,14 @@
+package Database;
+
+import java.sql.SQLException;
+
+/**
+ * the statements of a unit of work, run with a Transaction
+ *
+ * @param <R> the type returned by the work
+ * @see QueryRunner#inTransaction(UnitOfWork)
+ */
+@FunctionalInterface
+public interface UnitOfWork<R> {
+    R run(Transaction transaction) throws SQLException;
+}
@@ -3,8 +3,6 @@ package Models;
 import java.time.LocalDateTime;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.time.format.DateTimeFormatter;
-import java.time.format.FormatStyle;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -18,6 +16,8 @@ public class Appointment extends Record implements Model<Appointment>, Reportabl
     private long customerId;
     private long userId;
     private long contactId;
+    private transient String formattedStart;
+    private transient String formattedEnd;
 
     public Appointment(long id,
                        String title,
@@ -58,8 +58,8 @@ public class Appointment extends Record implements Model<Appointment>, Reportabl
                 description,
                 location,
                 type,
-                getSQLStart(),
-                getSQLEnd(),
+                getUTCStart(),
+                getUTCEnd(),
                 customerId,
                 userId,
                 contactId));
@@ -81,12 +81,22 @@ public class Appointment extends Record implements Model<Appointment>, Reportabl
         this.type = type.trim();
     }
 
+    public LocalDateTime getStart() {
+        return start;
+    }
+
     public void setStart(LocalDateTime start) {
         this.start = start;
+        formattedStart = null;
+    }
+
+    public LocalDateTime getEnd() {
+        return end;
     }
 
     public void setEnd(LocalDateTime end) {
         this.end = end;
+        formattedEnd = null;
     }
 
     public long getCustomerId() {
@@ -114,42 +124,37 @@ public class Appointment extends Record implements Model<Appointment>, Reportabl
     }
 
     /**
-     * @return the start date formatted for a sql query
+     * @return the start date in UTC, the zone it is stored in
      */
-    public String getSQLStart() {
-        return formatSQLDate(start);
+    public LocalDateTime getUTCStart() {
+        return DateFormats.toUTC(start);
     }
 
     /**
-     * @return the end date formatted for a sql query
+     * @return the end date in UTC, the zone it is stored in
      */
-    public String getSQLEnd() {
-        return formatSQLDate(end);
+    public LocalDateTime getUTCEnd() {
+        return DateFormats.toUTC(end);
     }
 
     /**
-     * formats a date for sql queries
+     * the string is formatted once and kept until the start changes, since the table asks for it on every render
      *
-     * @param date the date to format
-     * @return the string for the sql query
-     */
-    private static String formatSQLDate(LocalDateTime date) {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-        return formatter.format(date.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneId.of("UTC")));
-    }
-
-    /**
      * @return the start date formatted for display in the table
      */
     public String getFormattedStart() {
-        return formatLocalDate(start);
+        if (formattedStart == null) formattedStart = formatLocalDate(start);
+        return formattedStart;
     }
 
     /**
+     * the string is formatted once and kept until the end changes, since the table asks for it on every render
+     *
      * @return the end date formatted for display in the table
      */
     public String getFormattedEnd() {
-        return formatLocalDate(end);
+        if (formattedEnd == null) formattedEnd = formatLocalDate(end);
+        return formattedEnd;
     }
 
     /**
@@ -159,8 +164,7 @@ public class Appointment extends Record implements Model<Appointment>, Reportabl
      * @return the string to display
      */
     public static String formatLocalDate(LocalDateTime date) {
-        final DateTimeFormatter formatter = DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT).withLocale(locale);
-        return date.format(formatter);
+        return DateFormats.formatDisplay(date, locale);
     }
 
     /**
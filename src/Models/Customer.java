@@ -9,14 +9,33 @@ public final class Customer extends Record implements Model<Customer>, Reportabl
     private final String phone;
     private String name;
     private long divisionId;
+    private transient String division;
+    private transient String country;
 
     public Customer(long id, String name, String address, String postalCode, String phone, long divisionId) {
+        this(id, name, address, postalCode, phone, divisionId, null, null);
+    }
+
+    /**
+     * @param division the name of the division, read with the customer for display
+     * @param country  the name of the division's country, read with the customer for display
+     */
+    public Customer(long id,
+                    String name,
+                    String address,
+                    String postalCode,
+                    String phone,
+                    long divisionId,
+                    String division,
+                    String country) {
         super(id);
         this.name = name;
         this.address = address;
         this.postalCode = postalCode;
         this.phone = phone;
         this.divisionId = divisionId;
+        this.division = division;
+        this.country = country;
     }
 
     public String getName() {
@@ -27,6 +46,14 @@ public final class Customer extends Record implements Model<Customer>, Reportabl
         this.name = name.trim();
     }
 
+    public String getPostalCode() {
+        return postalCode;
+    }
+
+    public String getPhone() {
+        return phone;
+    }
+
     public long getDivisionId() {
         return divisionId;
     }
@@ -35,6 +62,31 @@ public final class Customer extends Record implements Model<Customer>, Reportabl
         this.divisionId = divisionId;
     }
 
+    /**
+     * @return the name of the customer's division, null if it was not read with the customer
+     */
+    public String getDivision() {
+        return division;
+    }
+
+    /**
+     * @return the name of the country of the customer's division, null if it was not read with the customer
+     */
+    public String getCountry() {
+        return country;
+    }
+
+    /**
+     * sets the display names of the customer's division, e.g. after the division was changed in a form
+     *
+     * @param division the name of the division
+     * @param country  the name of the division's country
+     */
+    public void setDivisionNames(String division, String country) {
+        this.division = division;
+        this.country = country;
+    }
+
     /**
      * @see Model#toValues()
      */
@@ -48,7 +100,7 @@ public final class Customer extends Record implements Model<Customer>, Reportabl
      */
     @Override
     public Customer copy() {
-        return new Customer(id, name, address, postalCode, phone, divisionId);
+        return new Customer(id, name, address, postalCode, phone, divisionId, division, country);
     }
 
     /**
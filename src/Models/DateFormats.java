@@ -0,0 +1,42 @@
+package Models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.FormatStyle;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * the formatters the models format their dates with, built once and shared. formatters are immutable and thread-safe,
+ * so one instance per locale serves every table cell and report instead of one per call
+ */
+final class DateFormats {
+    private static final Map<Locale, DateTimeFormatter> DISPLAY = new ConcurrentHashMap<>();
+
+    private DateFormats() {
+    }
+
+    /**
+     * @param date a date in the local user's time zone
+     * @return the date in UTC, the zone dates are stored in
+     */
+    static LocalDateTime toUTC(LocalDateTime date) {
+        return date.atZone(ZoneId.systemDefault()).withZoneSameInstant(ZoneOffset.UTC).toLocalDateTime();
+    }
+
+    /**
+     * lambda1: build the formatter of a locale the first time it is used
+     *
+     * @param date   the date to format
+     * @param locale the locale to format the date for
+     * @return the date formatted for display
+     */
+    static String formatDisplay(LocalDateTime date, Locale locale) {
+        // lambda to build the formatter of a locale the first time it is used
+        return date.format(DISPLAY.computeIfAbsent(locale,
+                key -> DateTimeFormatter.ofLocalizedDateTime(FormatStyle.SHORT).withLocale(key)));
+    }
+}
@@ -1,6 +1,7 @@
 package Models;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.time.LocalDateTime;
 import java.util.Locale;
 import java.util.ResourceBundle;
@@ -37,12 +38,14 @@ public abstract class Record {
     }
 
     /**
-     * iterates over all declared fields for a record performing validation on longs and strings
+     * iterates over all declared fields for a record performing validation on longs and strings. transient fields only
+     * cache values derived from the other fields and are skipped
      *
      * @throws ValidationError the invalid field error
      */
     public void validate() throws ValidationError {
         for (final Field declaredField : getClass().getDeclaredFields()) {
+            if (Modifier.isTransient(declaredField.getModifiers())) continue;
             try {
                 declaredField.setAccessible(true);
                 final Object value = declaredField.get(this);
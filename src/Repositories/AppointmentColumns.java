@@ -0,0 +1,155 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Models.Appointment;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * a read-only list of appointments stored column by column. the ids and dates are held in primitive arrays, the dates
+ * as epoch seconds, and the types and locations, which repeat across most rows, are stored once each and referenced by
+ * code. an Appointment is only built when a row is read, so a large result costs a few arrays instead of an object
+ * graph per row, and a caller that reads the rows one at a time only ever holds one of them
+ */
+public final class AppointmentColumns extends AbstractList<Appointment> implements RandomAccess {
+    private static final int INITIAL_CAPACITY = 64;
+    private final Dictionary types = new Dictionary();
+    private final Dictionary locations = new Dictionary();
+    private int size = 0;
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private long[] starts = new long[INITIAL_CAPACITY];
+    private long[] ends = new long[INITIAL_CAPACITY];
+    private long[] customerIds = new long[INITIAL_CAPACITY];
+    private long[] userIds = new long[INITIAL_CAPACITY];
+    private long[] contactIds = new long[INITIAL_CAPACITY];
+    private int[] typeCodes = new int[INITIAL_CAPACITY];
+    private int[] locationCodes = new int[INITIAL_CAPACITY];
+    private String[] titles = new String[INITIAL_CAPACITY];
+    private String[] descriptions = new String[INITIAL_CAPACITY];
+
+    /**
+     * creates an empty store, filled by AppointmentRepository a row at a time
+     */
+    AppointmentColumns() {
+    }
+
+    /**
+     * adds the appointment of a row
+     *
+     * @param rs a result set positioned on a row starting with the AppointmentRepository.SELECT_COLUMNS columns
+     * @throws SQLException any exception reading the row
+     */
+    void add(ResultSet rs) throws SQLException {
+        if (size == ids.length) grow();
+        ids[size] = rs.getLong(1);
+        titles[size] = rs.getString(2);
+        descriptions[size] = rs.getString(3);
+        locationCodes[size] = locations.encode(rs.getString(4));
+        typeCodes[size] = types.encode(rs.getString(5));
+        starts[size] = QueryRunner.getInstant(rs, 6).getEpochSecond();
+        ends[size] = QueryRunner.getInstant(rs, 7).getEpochSecond();
+        customerIds[size] = rs.getLong(8);
+        userIds[size] = rs.getLong(9);
+        contactIds[size] = rs.getLong(10);
+        size++;
+    }
+
+    /**
+     * @param row the index of the row
+     * @return the contact id of the appointment of the row, read without building the appointment
+     */
+    public long getContactId(int row) {
+        return contactIds[checkIndex(row)];
+    }
+
+    /**
+     * builds the appointment of a row. every call returns a new instance, so the caller owns it and changes to it are
+     * not stored
+     *
+     * @see AbstractList#get(int)
+     */
+    @Override
+    public Appointment get(int row) {
+        checkIndex(row);
+        final ZoneId zone = ZoneId.systemDefault();
+        return new Appointment(ids[row],
+                titles[row],
+                descriptions[row],
+                locations.decode(locationCodes[row]),
+                types.decode(typeCodes[row]),
+                LocalDateTime.ofInstant(Instant.ofEpochSecond(starts[row]), zone),
+                LocalDateTime.ofInstant(Instant.ofEpochSecond(ends[row]), zone),
+                customerIds[row],
+                userIds[row],
+                contactIds[row]);
+    }
+
+    /**
+     * @see AbstractList#size()
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    private int checkIndex(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("row " + row + " of " + size);
+        return row;
+    }
+
+    /**
+     * doubles the capacity of every column
+     */
+    private void grow() {
+        final int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        ends = Arrays.copyOf(ends, capacity);
+        customerIds = Arrays.copyOf(customerIds, capacity);
+        userIds = Arrays.copyOf(userIds, capacity);
+        contactIds = Arrays.copyOf(contactIds, capacity);
+        typeCodes = Arrays.copyOf(typeCodes, capacity);
+        locationCodes = Arrays.copyOf(locationCodes, capacity);
+        titles = Arrays.copyOf(titles, capacity);
+        descriptions = Arrays.copyOf(descriptions, capacity);
+    }
+
+    /**
+     * the distinct values of a column, each stored once and referenced by its code
+     */
+    private static final class Dictionary {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> codes = new HashMap<>();
+
+        /**
+         * @param value the value to store
+         * @return the code of the value, added if it is new
+         */
+        private int encode(String value) {
+            final Integer code = codes.get(value);
+            if (code != null) return code;
+            values.add(value);
+            codes.put(value, values.size() - 1);
+            return values.size() - 1;
+        }
+
+        /**
+         * @param code the code of a value
+         * @return the value
+         */
+        private String decode(int code) {
+            return values.get(code);
+        }
+    }
+}
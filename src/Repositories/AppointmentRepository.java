@@ -0,0 +1,434 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Database.Transaction;
+import Models.Appointment;
+import Models.Contact;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.time.temporal.WeekFields;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * queries and writes the appointments, including the queries behind the filter and the reports
+ */
+public final class AppointmentRepository implements RecordRepository<Appointment> {
+    private static final String SELECT_COLUMNS = "SELECT Appointment_ID, Title, Description, `Location`, `Type`, " +
+            "`Start`, `End`, Customer_ID, User_ID, Contact_ID " +
+            "FROM appointments";
+    private static final String TABLE = "appointments";
+    private static final String INSERT = "INSERT INTO appointments (Title, Description, `Location`, `Type`, `Start`, `End`, Customer_ID, User_ID, Contact_ID, Created_By, Last_Updated_By, Create_Date, Last_Update) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private final QueryRunner runner;
+
+    public AppointmentRepository(QueryRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * reads the page of appointments that follows the anchor in (`Start`, Appointment_ID) order. seeking past the
+     * anchor instead of using an OFFSET keeps every page as cheap as the first one however deep the user scrolls
+     *
+     * @param period the part of the year to filter by, or null to read every appointment
+     * @param year   the year of the appointments, ignored without a period
+     * @param value  the month or week of the appointments, ignored without a period
+     * @param after  the last appointment of the previous page, or null to read the first page
+     * @param limit  the maximum number of appointments to read
+     * @return the appointments of the page ordered by start and id
+     * @throws SQLException any exception from the query
+     */
+    public List<Appointment> findPageAfter(Period period, int year, int value, Appointment after, int limit)
+            throws SQLException {
+        return findPage(period, year, value, after, false, limit);
+    }
+
+    /**
+     * reads the page of appointments that precedes the anchor in (`Start`, Appointment_ID) order, used to load rows
+     * back in after they were evicted from the top of the table
+     *
+     * @param period the part of the year to filter by, or null to read every appointment
+     * @param year   the year of the appointments, ignored without a period
+     * @param value  the month or week of the appointments, ignored without a period
+     * @param before the first appointment of the following page
+     * @param limit  the maximum number of appointments to read
+     * @return the appointments of the page ordered by start and id
+     * @throws SQLException any exception from the query
+     */
+    public List<Appointment> findPageBefore(Period period, int year, int value, Appointment before, int limit)
+            throws SQLException {
+        return findPage(period, year, value, before, true, limit);
+    }
+
+    /**
+     * @param period   the part of the year to filter by, or null to read every appointment
+     * @param year     the year of the appointments
+     * @param value    the month or week of the appointments
+     * @param anchor   the appointment to seek from, or null to start from the beginning
+     * @param backward whether to read the appointments before the anchor instead of after it
+     * @param limit    the maximum number of appointments to read
+     * @return the appointments of the page ordered by start and id
+     * @throws SQLException any exception from the query
+     */
+    private List<Appointment> findPage(Period period, int year, int value, Appointment anchor, boolean backward,
+                                       int limit) throws SQLException {
+        final List<String> conditions = new ArrayList<>();
+        final List<Object> arguments = new ArrayList<>();
+        if (period != null) {
+            conditions.add("`Start` >= ? AND `Start` < ?");
+            arguments.add(period.from(year, value));
+            arguments.add(period.to(year, value));
+        }
+        if (anchor != null) {
+            conditions.add(String.format("(`Start` %1$s ? OR (`Start` = ? AND Appointment_ID %1$s ?))",
+                    backward ? "<" : ">"));
+            final LocalDateTime start = anchor.getUTCStart();
+            arguments.add(start);
+            arguments.add(start);
+            arguments.add(anchor.getId());
+        }
+        String query = SELECT_COLUMNS;
+        if (!conditions.isEmpty()) query += " WHERE " + String.join(" AND ", conditions);
+        query += String.format(" ORDER BY `Start` %1$s, Appointment_ID %1$s LIMIT ?", backward ? "DESC" : "ASC");
+        arguments.add(limit);
+
+        final List<Appointment> page = runner.query(query, arguments, AppointmentRepository::readAppointments);
+        if (backward) Collections.reverse(page);
+        return page;
+    }
+
+    /**
+     * a range scan of the index on (User_ID, `Start`)
+     *
+     * @param userId the user whose appointments to find
+     * @param from   the inclusive start of the window
+     * @param to     the exclusive end of the window
+     * @return the user's appointments that start within the window, ordered by start
+     * @throws SQLException any exception from the query
+     */
+    public List<Appointment> findByUserStartingBetween(long userId, Instant from, Instant to) throws SQLException {
+        return runner.query(SELECT_COLUMNS + " WHERE User_ID = ? AND `Start` >= ? AND `Start` < ? ORDER BY `Start`",
+                List.of(userId, from, to), AppointmentRepository::readAppointments);
+    }
+
+    /**
+     * lambda1: add the count of every group
+     * <p>
+     * counts the appointments of every (year, month, week) in one pass over the index on `Start`, so the filter can
+     * list years, months and weeks with their counts without another query
+     *
+     * @return the number of appointments in every year, month and week
+     * @throws SQLException any exception from the query
+     */
+    public CalendarHistogram findCalendarHistogram() throws SQLException {
+        // lambda to add the count of every group
+        return runner.query("SELECT YEAR(`Start`), MONTH(`Start`), WEEK(`Start`), COUNT(*) " +
+                "FROM appointments " +
+                "GROUP BY YEAR(`Start`), MONTH(`Start`), WEEK(`Start`)", null, rs -> {
+            final CalendarHistogram histogram = new CalendarHistogram();
+            while (rs.next()) {
+                histogram.add(rs.getInt(1), rs.getInt(2), rs.getInt(3), rs.getInt(4));
+            }
+            return histogram;
+        });
+    }
+
+    /**
+     * lambda1: read the count
+     * <p>
+     * the authoritative overlap check, confirming that no other user booked the customer since the OverlapIndex was
+     * last refreshed. the range predicates compare the bare columns, so the customer's index narrows the rows, and they
+     * match an appointment that contains the new one
+     *
+     * @param appointment the appointment to check
+     * @return the number of the customer's other appointments that overlap with the appointment
+     * @throws SQLException any exception from the query
+     * @see OverlapIndex#overlaps(Appointment)
+     */
+    public int countOverlapping(Appointment appointment) throws SQLException {
+        String query = "SELECT COUNT(*) FROM appointments " +
+                "WHERE Customer_ID = ? AND `Start` < ? AND `End` > ?";
+        final List<Object> arguments = new ArrayList<>(List.of(appointment.getCustomerId(),
+                appointment.getUTCEnd(),
+                appointment.getUTCStart()));
+        if (appointment.getId() != 0L) {
+            query += " AND Appointment_ID != ?";
+            arguments.add(appointment.getId());
+        }
+        // lambda to read the count
+        return runner.query(query, arguments, rs -> {
+            rs.next();
+            return rs.getInt(1);
+        });
+    }
+
+    /**
+     * @param customerId the customer whose appointments to find
+     * @return the customer's appointments
+     * @throws SQLException any exception from the query
+     */
+    public List<Appointment> findByCustomer(long customerId) throws SQLException {
+        return runner.query(SELECT_COLUMNS + " WHERE Customer_ID = ?", List.of(customerId),
+                AppointmentRepository::readAppointments);
+    }
+
+    /**
+     * lambda1: read the count of each month
+     *
+     * @return the number of appointments in each month of the year, ordered by month
+     * @throws SQLException any exception from the query
+     */
+    public Map<Integer, Integer> countByMonth() throws SQLException {
+        // lambda to read the count of each month
+        return runner.query("SELECT MONTH(`Start`) as `Month`, COUNT(*) as `Count` " +
+                "FROM appointments GROUP BY MONTH(`Start`) " +
+                "ORDER BY MONTH(`Start`)", null, rs -> {
+            final Map<Integer, Integer> counts = new LinkedHashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getInt(1), rs.getInt(2));
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * lambda1: read the count of each type
+     *
+     * @return the number of appointments of each type, ordered by type
+     * @throws SQLException any exception from the query
+     */
+    public Map<String, Integer> countByType() throws SQLException {
+        // lambda to read the count of each type
+        return runner.query("SELECT `Type`, COUNT(*) as `Count` " +
+                "FROM appointments GROUP BY `Type` " +
+                "ORDER BY `Type`", null, rs -> {
+            final Map<String, Integer> counts = new LinkedHashMap<>();
+            while (rs.next()) {
+                counts.put(rs.getString(1), rs.getInt(2));
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * lambda1: group the appointments under their contact
+     * <p>
+     * every appointment is read, so the rows are stored in one AppointmentColumns and each contact's schedule is a view
+     * of its rows, which are consecutive since they are ordered by contact
+     *
+     * @return every appointment grouped by contact, the contacts ordered by id and the appointments by start
+     * @throws SQLException any exception from the query
+     */
+    public Map<Contact, List<Appointment>> findAllByContact() throws SQLException {
+        // lambda to group the appointments under their contact
+        return runner.query("SELECT Appointment_ID, Title, Description, `Location`, `Type`, `Start`, `End`, " +
+                "Customer_ID, User_ID, c.Contact_ID, c.Contact_Name, c.Email " +
+                "FROM appointments a " +
+                "JOIN contacts c ON c.Contact_ID = a.Contact_ID " +
+                "ORDER BY Contact_ID, `Start`", null, rs -> {
+            final AppointmentColumns columns = new AppointmentColumns();
+            final List<Contact> contacts = new ArrayList<>();
+            final List<Integer> firstRows = new ArrayList<>();
+            while (rs.next()) {
+                final int row = columns.size();
+                columns.add(rs);
+                if (row == 0 || columns.getContactId(row) != columns.getContactId(row - 1)) {
+                    contacts.add(new Contact(rs.getLong(10), rs.getString(11), rs.getString(12)));
+                    firstRows.add(row);
+                }
+            }
+            final Map<Contact, List<Appointment>> appointments = new LinkedHashMap<>();
+            for (int i = 0; i < contacts.size(); i++) {
+                final int end = i + 1 < contacts.size() ? firstRows.get(i + 1) : columns.size();
+                appointments.put(contacts.get(i), columns.subList(firstRows.get(i), end));
+            }
+            return appointments;
+        });
+    }
+
+    /**
+     * locks the customer's appointments so the ones read are exactly the ones deleted later in the transaction
+     *
+     * @param transaction the transaction the customer is being deleted in
+     * @param customerId  the customer whose appointments to read
+     * @return the customer's appointments
+     * @throws SQLException any exception from the query
+     */
+    public List<Appointment> findByCustomerForUpdate(Transaction transaction, long customerId) throws SQLException {
+        return transaction.executeQuery(SELECT_COLUMNS + " WHERE Customer_ID = ? FOR UPDATE", List.of(customerId),
+                AppointmentRepository::readAppointments);
+    }
+
+    /**
+     * @param transaction the transaction the customer is being deleted in
+     * @param customerId  the customer whose appointments to delete
+     * @return the number of deleted appointments
+     * @throws SQLException any exception from the delete
+     */
+    public int deleteByCustomer(Transaction transaction, long customerId) throws SQLException {
+        Tombstones.record(transaction, TABLE, "Appointment_ID", "Customer_ID = ?", List.of(customerId));
+        return transaction.executeUpdate("DELETE FROM appointments WHERE Customer_ID = ?", List.of(customerId));
+    }
+
+    /**
+     * @see RecordRepository#findServerTime()
+     */
+    @Override
+    public Timestamp findServerTime() throws SQLException {
+        return Tombstones.now(runner);
+    }
+
+    /**
+     * @see RecordRepository#findChangesSince(Timestamp)
+     */
+    @Override
+    public Changes<Appointment> findChangesSince(Timestamp since) throws SQLException {
+        final Timestamp asOf = Tombstones.now(runner);
+        final List<Appointment> changed = runner.query(SELECT_COLUMNS + " WHERE Last_Update >= ?", List.of(since),
+                AppointmentRepository::readAppointments);
+        return new Changes<>(asOf, changed, Tombstones.findDeletedSince(runner, TABLE, since));
+    }
+
+    /**
+     * @see RecordRepository#insert(Models.Record, long)
+     */
+    @Override
+    public long insert(Appointment appointment, long userId) throws SQLException {
+        return runner.insert(INSERT, toInsertArguments(appointment, userId));
+    }
+
+    /**
+     * @see RecordRepository#insertAll(List, long)
+     */
+    @Override
+    public List<Long> insertAll(List<Appointment> appointments, long userId) throws SQLException {
+        final List<List<Object>> rows = new ArrayList<>(appointments.size());
+        for (Appointment appointment : appointments) {
+            rows.add(toInsertArguments(appointment, userId));
+        }
+        return runner.batchInsert(INSERT, rows);
+    }
+
+    /**
+     * @return the arguments of INSERT for the appointment, created and last updated by the user
+     */
+    private static List<Object> toInsertArguments(Appointment appointment, long userId) {
+        final List<Object> arguments = appointment.toValues();
+        arguments.add(userId);
+        arguments.add(userId);
+        return arguments;
+    }
+
+    /**
+     * @see RecordRepository#update(Models.Record, long)
+     */
+    @Override
+    public int update(Appointment appointment, long userId) throws SQLException {
+        final List<Object> arguments = appointment.toValues();
+        arguments.add(userId);
+        arguments.add(appointment.getId());
+        return runner.update("UPDATE appointments " +
+                "SET Title = ?, Description = ?, `Location` = ?, `Type` = ?, `Start` = ?, `End` = ?, Customer_ID = ?, User_ID = ?, Contact_ID = ?, Last_Updated_By = ?, Last_Update = NOW() " +
+                "WHERE Appointment_ID = ?", arguments);
+    }
+
+    /**
+     * @see RecordRepository#delete(Transaction, Models.Record)
+     */
+    @Override
+    public int delete(Transaction transaction, Appointment appointment) throws SQLException {
+        Tombstones.record(transaction, TABLE, "Appointment_ID", "Appointment_ID = ?", List.of(appointment.getId()));
+        return transaction.executeUpdate("DELETE FROM appointments WHERE Appointment_ID = ?",
+                List.of(appointment.getId()));
+    }
+
+    /**
+     * @param rs a result set of SELECT_COLUMNS rows
+     * @return the appointments of every row
+     * @throws SQLException any exception reading the rows
+     */
+    private static List<Appointment> readAppointments(ResultSet rs) throws SQLException {
+        final List<Appointment> appointments = new ArrayList<>();
+        while (rs.next()) {
+            appointments.add(readAppointment(rs));
+        }
+        return appointments;
+    }
+
+    /**
+     * @param rs a result set positioned on a row starting with the SELECT_COLUMNS columns
+     * @return the appointment of the row
+     * @throws SQLException any exception reading the row
+     */
+    private static Appointment readAppointment(ResultSet rs) throws SQLException {
+        return new Appointment(rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                QueryRunner.getLocalDateTime(rs, 6),
+                QueryRunner.getLocalDateTime(rs, 7),
+                rs.getLong(8),
+                rs.getLong(9),
+                rs.getLong(10));
+    }
+
+    /**
+     * the parts of a year the appointments can be filtered by, named after the SQL function that extracts them
+     */
+    public enum Period {
+        MONTH, WEEK;
+
+        /**
+         * the weeks of MySQL's default WEEK() mode, starting on Sunday with the days before the first Sunday in week 0
+         */
+        private static final WeekFields SQL_WEEK = WeekFields.of(DayOfWeek.SUNDAY, 7);
+
+        /**
+         * @param dateTime the date and time to read
+         * @return the month or week of the year of the date, as the SQL function of the same name returns it
+         */
+        public int of(LocalDateTime dateTime) {
+            return this == MONTH ? dateTime.getMonthValue() : dateTime.get(SQL_WEEK.weekOfYear());
+        }
+
+        /**
+         * @param year  the year of the month or week
+         * @param value the month or week of the year
+         * @return the inclusive start of the month or week, week 0 being the days before the first Sunday
+         */
+        public LocalDateTime from(int year, int value) {
+            if (this == MONTH) return LocalDate.of(year, value, 1).atStartOfDay();
+            if (value == 0) return LocalDate.of(year, 1, 1).atStartOfDay();
+            return getFirstSunday(year).plusWeeks(value - 1).atStartOfDay();
+        }
+
+        /**
+         * @param year  the year of the month or week
+         * @param value the month or week of the year
+         * @return the exclusive end of the month or week, the last week ending with the year
+         */
+        public LocalDateTime to(int year, int value) {
+            if (this == MONTH) return from(year, value).plusMonths(1);
+            final LocalDateTime end = value == 0
+                    ? getFirstSunday(year).atStartOfDay()
+                    : from(year, value).plusWeeks(1);
+            final LocalDateTime newYear = LocalDate.of(year + 1, 1, 1).atStartOfDay();
+            return end.isAfter(newYear) ? newYear : end;
+        }
+
+        private static LocalDate getFirstSunday(int year) {
+            return LocalDate.of(year, 1, 1).with(TemporalAdjusters.firstInMonth(DayOfWeek.SUNDAY));
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package Repositories;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * the number of appointments in every year, month and week that has any, read with one grouped query so the filter
+ * can list the months and weeks of any year from memory. a week that spans two months is counted in both
+ *
+ * @see AppointmentRepository#findCalendarHistogram()
+ */
+public final class CalendarHistogram {
+    private final Map<Integer, Integer> years = new TreeMap<>();
+    private final Map<Integer, Map<Integer, Integer>> months = new TreeMap<>();
+    private final Map<Integer, Map<Integer, Integer>> weeks = new TreeMap<>();
+
+    /**
+     * creates an empty histogram, filled by AppointmentRepository#findCalendarHistogram() or used as the fallback when
+     * it fails
+     */
+    public CalendarHistogram() {
+    }
+
+    /**
+     * lambda1: create the months of a year
+     * lambda2: create the weeks of a year
+     * <p>
+     * adds the count of one (year, month, week) group
+     *
+     * @param year  the year of the group
+     * @param month the month of the group
+     * @param week  the week of the group
+     * @param count the number of appointments in the group
+     */
+    void add(int year, int month, int week, int count) {
+        years.merge(year, count, Integer::sum);
+        // lambda to create the months of a year
+        months.computeIfAbsent(year, ignored -> new TreeMap<>()).merge(month, count, Integer::sum);
+        // lambda to create the weeks of a year
+        weeks.computeIfAbsent(year, ignored -> new TreeMap<>()).merge(week, count, Integer::sum);
+    }
+
+    /**
+     * @return the number of appointments in each year, in ascending order
+     */
+    public Map<Integer, Integer> getYears() {
+        return Collections.unmodifiableMap(years);
+    }
+
+    /**
+     * @param year   the year to look in
+     * @param period whether to count months or weeks
+     * @return the number of appointments in each month or week of the year that has any, in ascending order
+     */
+    public Map<Integer, Integer> getPeriods(int year, AppointmentRepository.Period period) {
+        final Map<Integer, Integer> counts = (period == AppointmentRepository.Period.MONTH ? months : weeks).get(year);
+        return counts == null ? Collections.emptyMap() : Collections.unmodifiableMap(counts);
+    }
+}
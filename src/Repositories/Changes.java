@@ -0,0 +1,36 @@
+package Repositories;
+
+import Models.Record;
+
+import java.sql.Timestamp;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * the records of a table that were inserted, updated or deleted since a watermark
+ *
+ * @param <T> a subclass of the Record model
+ * @see RecordRepository#findChangesSince(Timestamp)
+ */
+public final class Changes<T extends Record> {
+    /**
+     * the server time the changes were read at, the watermark to pass to the next call
+     */
+    final public Timestamp asOf;
+    final public List<T> changed;
+    final public Set<Long> deletedIds;
+
+    public Changes(Timestamp asOf, List<T> changed, Set<Long> deletedIds) {
+        this.asOf = asOf;
+        this.changed = Collections.unmodifiableList(changed);
+        this.deletedIds = Collections.unmodifiableSet(deletedIds);
+    }
+
+    /**
+     * @return whether nothing changed
+     */
+    public boolean isEmpty() {
+        return changed.isEmpty() && deletedIds.isEmpty();
+    }
+}
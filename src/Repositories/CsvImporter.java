@@ -0,0 +1,357 @@
+package Repositories;
+
+import Models.Appointment;
+import Models.Contact;
+import Models.Country;
+import Models.Customer;
+import Models.Division;
+import Models.Record;
+import Models.User;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * imports the records of a CSV file whose first line names its columns. the file is streamed in chunks of CHUNK_SIZE
+ * rows: the rows of a chunk are parsed and validated in parallel, then the valid ones are written with one batched
+ * insert. a row that cannot be imported is reported with its line instead of stopping the import
+ *
+ * @param <T> a subclass of the Record model
+ */
+public final class CsvImporter<T extends Record> {
+    public static final int CHUNK_SIZE = 500;
+    /**
+     * the local date and time the user would enter in the form, e.g. 2021-03-01 09:30
+     */
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd[ ]['T']HH:mm[:ss]");
+    private final List<String> columns;
+    private final RowParser<T> parser;
+    private final RecordRepository<T> repository;
+    private final long userId;
+
+    private CsvImporter(List<String> columns, RowParser<T> parser, RecordRepository<T> repository, long userId) {
+        this.columns = columns;
+        this.parser = parser;
+        this.repository = repository;
+        this.userId = userId;
+    }
+
+    /**
+     * lambda1: read a customer from a row
+     * <p>
+     * the columns are Customer_Name, Address, Postal_Code, Phone, Division and Country. the division is found by its
+     * name and the name of its country
+     *
+     * @param repository    the repository to insert the customers with
+     * @param referenceData the divisions and countries to resolve the names against
+     * @param userId        the user importing the customers
+     * @return an importer of customers
+     */
+    public static CsvImporter<Customer> forCustomers(CustomerRepository repository,
+                                                     ReferenceData referenceData,
+                                                     long userId) {
+        final Map<String, Division> divisions = new HashMap<>();
+        for (Division division : referenceData.divisions.values()) {
+            final Country country = referenceData.countries.get(division.getCountryId());
+            if (country != null) divisions.put(toKey(country.getCountry(), division.getDivision()), division);
+        }
+        final List<String> columns = List.of("Customer_Name", "Address", "Postal_Code", "Phone", "Division", "Country");
+        // lambda to read a customer from a row
+        return new CsvImporter<>(columns, row -> {
+            final Division division = divisions.get(toKey(row.get("Country"), row.get("Division")));
+            if (division == null) throw new InvalidRow(getInvalidMessage("customer.division"));
+            return new Customer(0L,
+                    row.get("Customer_Name"),
+                    row.get("Address"),
+                    row.get("Postal_Code"),
+                    row.get("Phone"),
+                    division.getId(),
+                    division.getDivision(),
+                    referenceData.countries.get(division.getCountryId()).getCountry());
+        }, repository, userId);
+    }
+
+    /**
+     * lambda1: read an appointment from a row
+     * <p>
+     * the columns are Title, Description, Location, Type, Start, End, Customer_ID, User and Contact. the user and the
+     * contact are found by name and the start and end are in the local time of the importing user
+     *
+     * @param repository    the repository to insert the appointments with
+     * @param referenceData the users and contacts to resolve the names against
+     * @param userId        the user importing the appointments
+     * @return an importer of appointments
+     */
+    public static CsvImporter<Appointment> forAppointments(AppointmentRepository repository,
+                                                           ReferenceData referenceData,
+                                                           long userId) {
+        final Map<String, Long> users = new HashMap<>();
+        for (User user : referenceData.users.values()) {
+            users.put(toKey(user.getName()), user.getId());
+        }
+        final Map<String, Long> contacts = new HashMap<>();
+        for (Contact contact : referenceData.contacts.values()) {
+            contacts.put(toKey(contact.getName()), contact.getId());
+        }
+        final List<String> columns = List.of("Title", "Description", "Location", "Type", "Start", "End",
+                "Customer_ID", "User", "Contact");
+        // lambda to read an appointment from a row
+        return new CsvImporter<>(columns, row -> {
+            final Long appointmentUserId = users.get(toKey(row.get("User")));
+            if (appointmentUserId == null) throw new InvalidRow(getInvalidMessage("appointment.userId"));
+            final Long contactId = contacts.get(toKey(row.get("Contact")));
+            if (contactId == null) throw new InvalidRow(getInvalidMessage("appointment.contact"));
+            final long customerId;
+            try {
+                customerId = Long.parseLong(row.get("Customer_ID"));
+            } catch (NumberFormatException ex) {
+                throw new InvalidRow(getInvalidMessage("appointment.customerId"));
+            }
+            return new Appointment(0L,
+                    row.get("Title"),
+                    row.get("Description"),
+                    row.get("Location"),
+                    row.get("Type"),
+                    parseDateTime(row.get("Start"), "appointment.start"),
+                    parseDateTime(row.get("End"), "appointment.end"),
+                    customerId,
+                    appointmentUserId,
+                    contactId);
+        }, repository, userId);
+    }
+
+    /**
+     * reads the file a chunk at a time, so only CHUNK_SIZE rows are held in memory however large the file is
+     *
+     * @param path the CSV file to import, encoded in UTF-8
+     * @return the number of records imported and the rows that could not be imported
+     * @throws IOException any exception reading the file
+     */
+    public Report importFrom(Path path) throws IOException {
+        final Report report = new Report();
+        try (CsvReader reader = new CsvReader(Files.newBufferedReader(path, StandardCharsets.UTF_8))) {
+            final List<String> header = reader.next();
+            if (header == null) return report;
+            final Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < header.size(); i++) {
+                indexes.put(toKey(header.get(i).replace("\uFEFF", "")), i);
+            }
+            for (String column : columns) {
+                if (!indexes.containsKey(toKey(column))) {
+                    report.errors.add(new RowError(reader.getLine(),
+                            Record.bundle.getString("error.missingColumn").replace("%{field}", column)));
+                    return report;
+                }
+            }
+
+            List<Row> chunk = new ArrayList<>(CHUNK_SIZE);
+            for (List<String> fields = reader.next(); fields != null; fields = reader.next()) {
+                chunk.add(new Row(reader.getLine(), fields, indexes));
+                if (chunk.size() == CHUNK_SIZE) {
+                    importChunk(chunk, report);
+                    chunk = new ArrayList<>(CHUNK_SIZE);
+                }
+            }
+            importChunk(chunk, report);
+        }
+        report.errors.sort(Comparator.comparingInt(error -> error.line));
+        return report;
+    }
+
+    /**
+     * lambda1: parse and validate a row
+     * <p>
+     * parses and validates the rows in parallel, then inserts the valid records in one batch. if the batch fails, e.g.
+     * because one row names a customer that does not exist, the records are inserted one at a time so only the rows
+     * that fail are reported
+     *
+     * @param rows   the rows of the chunk
+     * @param report the report to add the results to
+     */
+    private void importChunk(List<Row> rows, Report report) {
+        if (rows.isEmpty()) return;
+        // lambda to parse and validate a row
+        final List<Parsed<T>> parsed = rows.parallelStream().<Parsed<T>>map(row -> {
+            try {
+                final T record = parser.parse(row);
+                record.validate();
+                return new Parsed<>(row, record, null);
+            } catch (InvalidRow | Record.ValidationError ex) {
+                return new Parsed<>(row, null, ex.getMessage());
+            }
+        }).collect(Collectors.toList());
+
+        final List<T> records = new ArrayList<>(parsed.size());
+        final List<Row> recordRows = new ArrayList<>(parsed.size());
+        for (Parsed<T> result : parsed) {
+            if (result.record == null) {
+                report.errors.add(new RowError(result.row.line, result.error));
+            } else {
+                records.add(result.record);
+                recordRows.add(result.row);
+            }
+        }
+        if (records.isEmpty()) return;
+
+        try {
+            report.imported += repository.insertAll(records, userId).size();
+        } catch (SQLException batchEx) {
+            for (int i = 0; i < records.size(); i++) {
+                try {
+                    repository.insert(records.get(i), userId);
+                    report.imported++;
+                } catch (SQLException ex) {
+                    report.errors.add(new RowError(recordRows.get(i).line, ex.getMessage()));
+                }
+            }
+        }
+    }
+
+    /**
+     * @param value the value of the cell
+     * @param key   the resource key of the field's name
+     * @return the local date and time of the cell
+     * @throws InvalidRow if the cell is not a date and time
+     */
+    private static LocalDateTime parseDateTime(String value, String key) throws InvalidRow {
+        try {
+            return LocalDateTime.parse(value, DATE_TIME);
+        } catch (DateTimeParseException ex) {
+            throw new InvalidRow(getInvalidMessage(key));
+        }
+    }
+
+    /**
+     * @param key the resource key of the field's name
+     * @return a message saying the field is invalid
+     */
+    private static String getInvalidMessage(String key) {
+        return Record.bundle.getString("error.is")
+                .replace("%{field}", Record.bundle.getString(key))
+                .replace("%{issue}", Record.bundle.getString("issue.invalid"));
+    }
+
+    /**
+     * @param names the names to combine
+     * @return a key of the names that ignores case and surrounding whitespace
+     */
+    private static String toKey(String... names) {
+        final List<String> parts = new ArrayList<>(names.length);
+        for (String name : names) {
+            parts.add(name.trim().toLowerCase(Locale.ROOT));
+        }
+        return String.join("\u0000", parts);
+    }
+
+    /**
+     * the outcome of an import
+     */
+    public static final class Report {
+        private final List<RowError> errors = new ArrayList<>();
+        private int imported = 0;
+
+        private Report() {
+        }
+
+        /**
+         * @return the number of records inserted
+         */
+        public int getImported() {
+            return imported;
+        }
+
+        /**
+         * @return the rows that could not be imported, in the order of the file
+         */
+        public List<RowError> getErrors() {
+            return errors;
+        }
+    }
+
+    /**
+     * a row that could not be imported
+     */
+    public static final class RowError {
+        /**
+         * the line of the file the row starts on, counting from one
+         */
+        final public int line;
+        final public String message;
+
+        private RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+    }
+
+    /**
+     * the cells of a row by the name of their column
+     */
+    private static final class Row {
+        private final int line;
+        private final List<String> fields;
+        private final Map<String, Integer> indexes;
+
+        private Row(int line, List<String> fields, Map<String, Integer> indexes) {
+            this.line = line;
+            this.fields = fields;
+            this.indexes = indexes;
+        }
+
+        /**
+         * @param column the name of the column
+         * @return the trimmed cell of the column, empty if the row is too short to have it
+         */
+        private String get(String column) {
+            final int index = indexes.get(toKey(column));
+            return index < fields.size() ? fields.get(index).trim() : "";
+        }
+    }
+
+    /**
+     * a row and the record read from it, or the reason it could not be read
+     */
+    private static final class Parsed<T> {
+        private final Row row;
+        private final T record;
+        private final String error;
+
+        private Parsed(Row row, T record, String error) {
+            this.row = row;
+            this.record = record;
+            this.error = error;
+        }
+    }
+
+    /**
+     * reads a record from a row without validating it
+     */
+    @FunctionalInterface
+    private interface RowParser<T> {
+        T parse(Row row) throws InvalidRow;
+    }
+
+    /**
+     * a cell that does not hold a valid value
+     */
+    private static final class InvalidRow extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private InvalidRow(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package Repositories;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * reads the records of a RFC 4180 CSV file one at a time, so a file of any size is never held in memory. a quoted field
+ * may hold commas, doubled quotes and line breaks
+ */
+final class CsvReader implements Closeable {
+    private final BufferedReader reader;
+    private int line = 0;
+    private int recordLine = 0;
+
+    CsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    /**
+     * @return the fields of the next record, or null at the end of the file. blank lines are skipped
+     * @throws IOException any exception reading the file
+     */
+    List<String> next() throws IOException {
+        String text = reader.readLine();
+        while (text != null && text.isBlank()) {
+            line++;
+            text = reader.readLine();
+        }
+        if (text == null) return null;
+        line++;
+        recordLine = line;
+
+        final List<String> fields = new ArrayList<>();
+        final StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) break;
+                // a quoted field continues on the next line
+                text = reader.readLine();
+                if (text == null) break;
+                line++;
+                field.append('\n');
+                i = 0;
+                continue;
+            }
+            final char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < text.length() && text.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * @return the line of the file the last record started on, counting from one
+     */
+    int getLine() {
+        return recordLine;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
@@ -0,0 +1,173 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Database.Transaction;
+import Models.Customer;
+import Models.Division;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * queries and writes the customers
+ */
+public final class CustomerRepository implements RecordRepository<Customer> {
+    private static final String SELECT_COLUMNS = "SELECT Customer_ID, Customer_Name, Address, Postal_Code, Phone, " +
+            "d.Division_ID, d.Country_ID, d.Division, co.Country " +
+            "FROM customers c " +
+            "JOIN first_level_divisions d ON d.Division_ID = c.Division_ID " +
+            "JOIN countries co ON co.Country_ID = d.Country_ID";
+    private static final String TABLE = "customers";
+    private static final String INSERT = "INSERT INTO customers " +
+            "(Customer_Name, Address, Postal_Code, Phone, Division_ID, Created_By, Last_Updated_By, Create_Date, Last_Update) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, NOW(), NOW())";
+    private final QueryRunner runner;
+
+    public CustomerRepository(QueryRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * the names of each customer's division and country are read in the same joined query, so the table can display
+     * them without the division and country tables
+     *
+     * @return every customer
+     * @throws SQLException any exception from the query
+     */
+    public List<Customer> findAll() throws SQLException {
+        return runner.query(SELECT_COLUMNS, null, CustomerRepository::readCustomers);
+    }
+
+    /**
+     * @see RecordRepository#findChangesSince(Timestamp)
+     */
+    @Override
+    public Changes<Customer> findChangesSince(Timestamp since) throws SQLException {
+        final Timestamp asOf = Tombstones.now(runner);
+        final List<Customer> changed = runner.query(SELECT_COLUMNS + " WHERE c.Last_Update >= ?", List.of(since),
+                CustomerRepository::readCustomers);
+        return new Changes<>(asOf, changed, Tombstones.findDeletedSince(runner, TABLE, since));
+    }
+
+    /**
+     * @see RecordRepository#findServerTime()
+     */
+    @Override
+    public Timestamp findServerTime() throws SQLException {
+        return Tombstones.now(runner);
+    }
+
+    /**
+     * lambda1: group the customers under their division
+     *
+     * @return every customer grouped by division, the divisions ordered by name and the customers by id
+     * @throws SQLException any exception from the query
+     */
+    public Map<Division, List<Customer>> findAllByDivision() throws SQLException {
+        // lambda to group the customers under their division
+        return runner.query(SELECT_COLUMNS + " ORDER BY d.Division, c.Customer_ID", null, rs -> {
+            final Map<Division, List<Customer>> customers = new LinkedHashMap<>();
+            List<Customer> group = null;
+            long divisionId = 0L;
+            while (rs.next()) {
+                final Customer customer = readCustomer(rs);
+                if (group == null || divisionId != customer.getDivisionId()) {
+                    divisionId = customer.getDivisionId();
+                    group = new ArrayList<>();
+                    customers.put(new Division(rs.getLong(6), rs.getString(8), rs.getLong(7)), group);
+                }
+                group.add(customer);
+            }
+            return customers;
+        });
+    }
+
+    /**
+     * @param rs a result set of SELECT_COLUMNS rows
+     * @return the customers of every row
+     * @throws SQLException any exception reading the rows
+     */
+    private static List<Customer> readCustomers(ResultSet rs) throws SQLException {
+        final List<Customer> customers = new ArrayList<>();
+        while (rs.next()) {
+            customers.add(readCustomer(rs));
+        }
+        return customers;
+    }
+
+    /**
+     * @param rs a result set positioned on a row of SELECT_COLUMNS
+     * @return the customer of the row
+     * @throws SQLException any exception reading the row
+     */
+    private static Customer readCustomer(ResultSet rs) throws SQLException {
+        return new Customer(rs.getLong(1),
+                rs.getString(2),
+                rs.getString(3),
+                rs.getString(4),
+                rs.getString(5),
+                rs.getLong(6),
+                rs.getString(8),
+                rs.getString(9));
+    }
+
+    /**
+     * @see RecordRepository#insert(Models.Record, long)
+     */
+    @Override
+    public long insert(Customer customer, long userId) throws SQLException {
+        return runner.insert(INSERT, toInsertArguments(customer, userId));
+    }
+
+    /**
+     * @see RecordRepository#insertAll(List, long)
+     */
+    @Override
+    public List<Long> insertAll(List<Customer> customers, long userId) throws SQLException {
+        final List<List<Object>> rows = new ArrayList<>(customers.size());
+        for (Customer customer : customers) {
+            rows.add(toInsertArguments(customer, userId));
+        }
+        return runner.batchInsert(INSERT, rows);
+    }
+
+    /**
+     * @return the arguments of INSERT for the customer, created and last updated by the user
+     */
+    private static List<Object> toInsertArguments(Customer customer, long userId) {
+        final List<Object> arguments = customer.toValues();
+        arguments.add(userId);
+        arguments.add(userId);
+        return arguments;
+    }
+
+    /**
+     * @see RecordRepository#update(Models.Record, long)
+     */
+    @Override
+    public int update(Customer customer, long userId) throws SQLException {
+        final List<Object> arguments = customer.toValues();
+        arguments.add(userId);
+        arguments.add(customer.getId());
+        return runner.update("UPDATE customers " +
+                "SET Customer_Name = ?, Address = ?, Postal_Code = ?, Phone = ?, Division_ID = ?, Last_Updated_By = ?, Last_Update = NOW() " +
+                "WHERE Customer_ID = ?", arguments);
+    }
+
+    /**
+     * the customer's appointments have to be deleted first in the same transaction
+     *
+     * @see RecordRepository#delete(Transaction, Models.Record)
+     * @see AppointmentRepository#deleteByCustomer(Transaction, long)
+     */
+    @Override
+    public int delete(Transaction transaction, Customer customer) throws SQLException {
+        Tombstones.record(transaction, TABLE, "Customer_ID", "Customer_ID = ?", List.of(customer.getId()));
+        return transaction.executeUpdate("DELETE FROM customers WHERE Customer_ID = ?", List.of(customer.getId()));
+    }
+}
@@ -0,0 +1,147 @@
+package Repositories;
+
+import Models.Customer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * a prefix index over the names, phone numbers and postal codes of the loaded customers. every word of the fields is
+ * kept lowercased and without punctuation in a sorted map, so the customers with a word starting with a prefix are one
+ * range of the map instead of a LIKE '%x%' scan of the customers table. the index holds the customer instances
+ * themselves, so a customer edited in place has to be updated
+ */
+public final class CustomerSearchIndex {
+    private final TreeMap<String, Set<Customer>> customersByWord = new TreeMap<>();
+    private final Map<Customer, List<String>> wordsByCustomer = new IdentityHashMap<>();
+
+    /**
+     * creates an empty index
+     */
+    public CustomerSearchIndex() {
+    }
+
+    /**
+     * lambda1: create the customers of a word
+     *
+     * @param customer the customer to add under the words of its name, phone and postal code
+     */
+    public void add(Customer customer) {
+        remove(customer);
+        final List<String> words = getWords(customer);
+        for (String word : words) {
+            // lambda to create the customers of a word
+            customersByWord.computeIfAbsent(word, ignored -> Collections.newSetFromMap(new IdentityHashMap<>()))
+                    .add(customer);
+        }
+        wordsByCustomer.put(customer, words);
+    }
+
+    /**
+     * @param customer the customer to take out of the index
+     */
+    public void remove(Customer customer) {
+        final List<String> words = wordsByCustomer.remove(customer);
+        if (words == null) return;
+        for (String word : words) {
+            final Set<Customer> customers = customersByWord.get(word);
+            customers.remove(customer);
+            if (customers.isEmpty()) customersByWord.remove(word);
+        }
+    }
+
+    /**
+     * re-indexes a customer whose fields may have changed. a customer that is not in the index is left out
+     *
+     * @param customer the customer that was edited
+     */
+    public void update(Customer customer) {
+        if (wordsByCustomer.containsKey(customer)) add(customer);
+    }
+
+    /**
+     * @param query the words to search for, separated by spaces
+     * @return the customers with a word starting with every word of the query, null if the query has no words
+     */
+    public Set<Customer> search(String query) {
+        Set<Customer> matches = null;
+        for (String prefix : normalize(query)) {
+            final Set<Customer> prefixMatches = Collections.newSetFromMap(new IdentityHashMap<>());
+            for (Set<Customer> customers : customersByWord.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+                if (matches == null) {
+                    prefixMatches.addAll(customers);
+                } else {
+                    for (Customer customer : customers) {
+                        if (matches.contains(customer)) prefixMatches.add(customer);
+                    }
+                }
+            }
+            matches = prefixMatches;
+            if (matches.isEmpty()) break;
+        }
+        return matches;
+    }
+
+    /**
+     * checks a single customer against a query without a range lookup, e.g. one added after the search ran
+     *
+     * @param customer the customer to check
+     * @param query    the words to search for, separated by spaces
+     * @return whether the customer has a word starting with every word of the query
+     */
+    public boolean matches(Customer customer, String query) {
+        final List<String> words = wordsByCustomer.getOrDefault(customer, getWords(customer));
+        for (String prefix : normalize(query)) {
+            boolean found = false;
+            for (String word : words) {
+                if (word.startsWith(prefix)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the distinct words of the name, phone and postal code of the customer. a word with punctuation is also
+     * split at it, so "555-0123" is found by "5550123", "555" and "0123"
+     */
+    private static List<String> getWords(Customer customer) {
+        final Set<String> words = new LinkedHashSet<>();
+        for (String field : new String[]{customer.getName(), customer.getPhone(), customer.getPostalCode()}) {
+            if (field == null) continue;
+            for (String word : field.trim().split("\\s+")) {
+                words.addAll(normalize(word));
+                final String[] parts = word.split("[^\\p{L}\\p{N}]+");
+                if (parts.length > 1) {
+                    for (String part : parts) {
+                        words.addAll(normalize(part));
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(words);
+    }
+
+    /**
+     * @param text the text to split into words
+     * @return the words of the text lowercased and without punctuation, empty words left out
+     */
+    private static List<String> normalize(String text) {
+        final List<String> words = new ArrayList<>();
+        for (String word : text.trim().split("\\s+")) {
+            final String normalized = word.replaceAll("[^\\p{L}\\p{N}]", "").toLowerCase(Locale.ROOT);
+            if (!normalized.isEmpty()) words.add(normalized);
+        }
+        return words;
+    }
+}
@@ -0,0 +1,173 @@
+package Repositories;
+
+/**
+ * an AVL tree of half-open [start, end) intervals ordered by start and id, where every node also holds the latest end
+ * in its subtree. subtrees that end before a query interval starts are skipped, so an overlap is found in O(log n)
+ * regardless of how long the intervals are, including ones that fully contain the query
+ */
+final class IntervalTree {
+    private Node root;
+    private int size = 0;
+
+    /**
+     * @param id    the id of the interval
+     * @param start the inclusive start
+     * @param end   the exclusive end
+     */
+    void insert(long id, long start, long end) {
+        root = insert(root, new Node(id, start, end));
+        size++;
+    }
+
+    /**
+     * @param id    the id of the interval
+     * @param start the start it was inserted with
+     */
+    void remove(long id, long start) {
+        final int before = size;
+        root = remove(root, id, start);
+        if (size == before) throw new IllegalStateException("interval " + id + " is not in the tree");
+    }
+
+    /**
+     * @param start     the inclusive start of the query
+     * @param end       the exclusive end of the query
+     * @param excludeId the id of an interval to ignore, e.g. the one being edited
+     * @return whether any other interval overlaps [start, end)
+     */
+    boolean overlaps(long start, long end, long excludeId) {
+        return overlaps(root, start, end, excludeId);
+    }
+
+    /**
+     * @return the number of intervals in the tree
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * searches the subtree in start order, skipping subtrees that end before the query starts and stopping at the first
+     * node that starts after the query ends
+     */
+    private static boolean overlaps(Node node, long start, long end, long excludeId) {
+        if (node == null || node.maxEnd <= start) return false;
+        if (overlaps(node.left, start, end, excludeId)) return true;
+        if (node.start >= end) return false;
+        if (node.end > start && node.id != excludeId) return true;
+        return overlaps(node.right, start, end, excludeId);
+    }
+
+    /**
+     * @return the order of the start and id relative to the node
+     */
+    private static int compare(long start, long id, Node node) {
+        final int byStart = Long.compare(start, node.start);
+        return byStart != 0 ? byStart : Long.compare(id, node.id);
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) return added;
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return balance(node);
+    }
+
+    private Node remove(Node node, long id, long start) {
+        if (node == null) return null;
+        final int comparison = compare(start, id, node);
+        if (comparison < 0) {
+            node.left = remove(node.left, id, start);
+        } else if (comparison > 0) {
+            node.right = remove(node.right, id, start);
+        } else {
+            size--;
+            if (node.left == null) return node.right;
+            if (node.right == null) return node.left;
+            Node successor = node.right;
+            while (successor.left != null) successor = successor.left;
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            return balance(successor);
+        }
+        return balance(node);
+    }
+
+    /**
+     * @return the subtree without its first node
+     */
+    private static Node removeMin(Node node) {
+        if (node.left == null) return node.right;
+        node.left = removeMin(node.left);
+        return balance(node);
+    }
+
+    private static int height(Node node) {
+        return node == null ? 0 : node.height;
+    }
+
+    /**
+     * recomputes the height and latest end of a node from its children
+     */
+    private static void update(Node node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        node.maxEnd = node.end;
+        if (node.left != null) node.maxEnd = Math.max(node.maxEnd, node.left.maxEnd);
+        if (node.right != null) node.maxEnd = Math.max(node.maxEnd, node.right.maxEnd);
+    }
+
+    /**
+     * @return the subtree rotated so the heights of its children differ by at most one
+     */
+    private static Node balance(Node node) {
+        update(node);
+        final int skew = height(node.left) - height(node.right);
+        if (skew > 1) {
+            if (height(node.left.left) < height(node.left.right)) node.left = rotateLeft(node.left);
+            return rotateRight(node);
+        }
+        if (skew < -1) {
+            if (height(node.right.right) < height(node.right.left)) node.right = rotateRight(node.right);
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        final Node pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static Node rotateLeft(Node node) {
+        final Node pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static final class Node {
+        private final long id;
+        private final long start;
+        private final long end;
+        private long maxEnd;
+        private int height = 1;
+        private Node left;
+        private Node right;
+
+        private Node(long id, long start, long end) {
+            this.id = id;
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package Repositories;
+
+import Models.Appointment;
+
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * an in-memory interval tree of the appointments of each customer, answering overlap checks without a query. a
+ * customer's appointments are read once, the first time the customer is checked, and are then kept current by telling
+ * the index about every saved, deleted or refreshed appointment. a customer that was never checked is not held, so the
+ * index only grows with the customers that are actually booked
+ */
+public final class OverlapIndex {
+    private final AppointmentRepository repository;
+    private final Map<Long, IntervalTree> trees = new HashMap<>();
+    private final Map<Long, Entry> entries = new HashMap<>();
+
+    public OverlapIndex(AppointmentRepository repository) {
+        this.repository = repository;
+    }
+
+    /**
+     * overlapping means sharing any time, so an appointment may start right when another one ends, but one that
+     * contains another one or is contained by it overlaps
+     *
+     * @param appointment the new or edited appointment to check
+     * @return whether any of the customer's other appointments overlap the appointment
+     * @throws SQLException any exception reading the customer's appointments the first time the customer is checked
+     */
+    public synchronized boolean overlaps(Appointment appointment) throws SQLException {
+        return getTree(appointment.getCustomerId()).overlaps(toKey(appointment.getUTCStart()),
+                toKey(appointment.getUTCEnd()),
+                appointment.getId());
+    }
+
+    /**
+     * adds an inserted appointment or moves an updated one, including to another customer. an appointment of a
+     * customer that was never checked is ignored, since it is read with the rest when the customer is checked
+     *
+     * @param appointment the appointment as it is saved in the database
+     */
+    public synchronized void put(Appointment appointment) {
+        remove(appointment.getId());
+        final IntervalTree tree = trees.get(appointment.getCustomerId());
+        if (tree != null) add(tree, appointment);
+    }
+
+    /**
+     * @param appointmentId the id of a deleted appointment
+     */
+    public synchronized void remove(long appointmentId) {
+        final Entry entry = entries.remove(appointmentId);
+        if (entry != null) trees.get(entry.customerId).remove(appointmentId, entry.start);
+    }
+
+    /**
+     * @param appointmentIds the ids of deleted appointments
+     */
+    public synchronized void removeAll(Collection<Long> appointmentIds) {
+        for (long appointmentId : appointmentIds) {
+            remove(appointmentId);
+        }
+    }
+
+    /**
+     * lambda1: match the appointments of the customer
+     * <p>
+     * drops the appointments of a deleted customer
+     *
+     * @param customerId the id of the deleted customer
+     */
+    public synchronized void removeCustomer(long customerId) {
+        if (trees.remove(customerId) == null) return;
+        // lambda to match the appointments of the customer
+        entries.values().removeIf(entry -> entry.customerId == customerId);
+    }
+
+    /**
+     * @param customerId the customer whose appointments to look up
+     * @return the customer's tree, read from the database if the customer was never checked
+     * @throws SQLException any exception from the query
+     */
+    private IntervalTree getTree(long customerId) throws SQLException {
+        IntervalTree tree = trees.get(customerId);
+        if (tree == null) {
+            tree = new IntervalTree();
+            for (Appointment appointment : repository.findByCustomer(customerId)) {
+                add(tree, appointment);
+            }
+            trees.put(customerId, tree);
+        }
+        return tree;
+    }
+
+    private void add(IntervalTree tree, Appointment appointment) {
+        final Entry entry = new Entry(appointment.getCustomerId(), toKey(appointment.getUTCStart()));
+        tree.insert(appointment.getId(), entry.start, toKey(appointment.getUTCEnd()));
+        entries.put(appointment.getId(), entry);
+    }
+
+    /**
+     * the UTC start and end are used, like the columns the database compares, since the local ones repeat an hour when
+     * daylight saving time ends
+     *
+     * @param dateTime a start or end in UTC
+     * @return the date and time as seconds
+     */
+    private static long toKey(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * where an appointment was put, so it can be found again after its customer or start changed
+     */
+    private static final class Entry {
+        private final long customerId;
+        private final long start;
+
+        private Entry(long customerId, long start) {
+            this.customerId = customerId;
+            this.start = start;
+        }
+    }
+}
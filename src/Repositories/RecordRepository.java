@@ -0,0 +1,69 @@
+package Repositories;
+
+import Database.Transaction;
+import Models.Record;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+
+/**
+ * the writes and the delta refresh every table of records supports
+ *
+ * @param <T> a subclass of the Record model
+ */
+public interface RecordRepository<T extends Record> {
+    /**
+     * @param record the record to insert
+     * @param userId the user creating the record
+     * @return the generated id of the new record
+     * @throws SQLException any exception from the insert
+     */
+    long insert(T record, long userId) throws SQLException;
+
+    /**
+     * inserts the records with JDBC batches in a single transaction, so either every record is inserted or none are
+     *
+     * @param records the records to insert
+     * @param userId  the user creating the records
+     * @return the generated ids in the order of the records
+     * @throws SQLException any exception from the inserts, after the transaction has been rolled back
+     */
+    List<Long> insertAll(List<T> records, long userId) throws SQLException;
+
+    /**
+     * @param record the changed record
+     * @param userId the user changing the record
+     * @return the number of updated rows
+     * @throws SQLException any exception from the update
+     */
+    int update(T record, long userId) throws SQLException;
+
+    /**
+     * deletes the record inside a transaction so its dependencies can be deleted along with it
+     *
+     * @param transaction the transaction the record is being deleted in
+     * @param record      the record to delete
+     * @return the number of deleted rows
+     * @throws SQLException any exception from the delete
+     */
+    int delete(Transaction transaction, T record) throws SQLException;
+
+    /**
+     * @return the current time of the database server, the watermark to pass to the first call of
+     * RecordRepository#findChangesSince(Timestamp)
+     * @throws SQLException any exception from the query
+     */
+    Timestamp findServerTime() throws SQLException;
+
+    /**
+     * reads the records inserted or updated at or after the watermark by their Last_Update, and the ids of the records
+     * deleted since then by their tombstones. a record changed right at the watermark is read again by the next call,
+     * so merging the changes has to be idempotent
+     *
+     * @param since the watermark returned by the previous call
+     * @return the changes and the watermark for the next call
+     * @throws SQLException any exception from the queries
+     */
+    Changes<T> findChangesSince(Timestamp since) throws SQLException;
+}
@@ -0,0 +1,32 @@
+package Repositories;
+
+import Models.Contact;
+import Models.Country;
+import Models.Division;
+import Models.User;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * one read of the contacts, users, divisions and countries, each by its id. the maps are unmodifiable so the snapshot
+ * can be shared by every controller and thread
+ *
+ * @see ReferenceDataCache#get()
+ */
+public final class ReferenceData {
+    final public Map<Long, Contact> contacts;
+    final public Map<Long, User> users;
+    final public Map<Long, Division> divisions;
+    final public Map<Long, Country> countries;
+
+    public ReferenceData(Map<Long, Contact> contacts,
+                         Map<Long, User> users,
+                         Map<Long, Division> divisions,
+                         Map<Long, Country> countries) {
+        this.contacts = Collections.unmodifiableMap(contacts);
+        this.users = Collections.unmodifiableMap(users);
+        this.divisions = Collections.unmodifiableMap(divisions);
+        this.countries = Collections.unmodifiableMap(countries);
+    }
+}
@@ -0,0 +1,59 @@
+package Repositories;
+
+import Database.QueryRunner;
+
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * the process-wide copy of the reference tables. the app never edits them, so they are read once, usually right after
+ * login, and every table and form reads them from memory. the copy is read again once it is older than TTL_MINUTES or
+ * after it is invalidated, e.g. when the connection pool points at another database
+ */
+public final class ReferenceDataCache {
+    public static final long TTL_MINUTES = 60;
+    private final ReferenceDataRepository referenceDataRepository;
+    private final UserRepository userRepository;
+    private volatile ReferenceData data;
+    private volatile long loadedAt;
+
+    public ReferenceDataCache(QueryRunner runner) {
+        this.referenceDataRepository = new ReferenceDataRepository(runner);
+        this.userRepository = new UserRepository(runner);
+    }
+
+    /**
+     * callers that ask while the tables are being read wait for that read instead of starting their own
+     *
+     * @return the reference data, read from the database if there is no fresh copy
+     * @throws SQLException any exception reading the tables, in which case the stale copy is kept for the next call
+     */
+    public ReferenceData get() throws SQLException {
+        final ReferenceData cached = data;
+        if (cached != null && isFresh()) return cached;
+        synchronized (this) {
+            if (data == null || !isFresh()) {
+                data = new ReferenceData(referenceDataRepository.findContacts(),
+                        userRepository.findAll(),
+                        referenceDataRepository.findDivisions(),
+                        referenceDataRepository.findCountries());
+                loadedAt = System.nanoTime();
+            }
+            return data;
+        }
+    }
+
+    /**
+     * drops the copy so the next call reads the tables again
+     */
+    public synchronized void invalidate() {
+        data = null;
+    }
+
+    /**
+     * @return whether the copy is younger than TTL_MINUTES
+     */
+    private boolean isFresh() {
+        return System.nanoTime() - loadedAt < TimeUnit.MINUTES.toNanos(TTL_MINUTES);
+    }
+}
@@ -0,0 +1,75 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Models.Contact;
+import Models.Country;
+import Models.Division;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * queries the contacts, divisions and countries that the appointments and customers refer to
+ */
+public final class ReferenceDataRepository {
+    private final QueryRunner runner;
+
+    public ReferenceDataRepository(QueryRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * lambda1: read the contacts into a map
+     *
+     * @return every contact by its id
+     * @throws SQLException any exception from the query
+     */
+    public Map<Long, Contact> findContacts() throws SQLException {
+        // lambda to read the contacts into a map
+        return runner.query("SELECT Contact_ID, Contact_Name, Email FROM contacts", null, rs -> {
+            final Map<Long, Contact> contacts = new HashMap<>();
+            while (rs.next()) {
+                final Contact contact = new Contact(rs.getLong(1), rs.getString(2), rs.getString(3));
+                contacts.put(contact.getId(), contact);
+            }
+            return contacts;
+        });
+    }
+
+    /**
+     * lambda1: read the divisions into a map
+     *
+     * @return every first level division by its id
+     * @throws SQLException any exception from the query
+     */
+    public Map<Long, Division> findDivisions() throws SQLException {
+        // lambda to read the divisions into a map
+        return runner.query("SELECT Division_ID, Division, Country_ID FROM first_level_divisions", null, rs -> {
+            final Map<Long, Division> divisions = new HashMap<>();
+            while (rs.next()) {
+                final Division division = new Division(rs.getInt(1), rs.getString(2), rs.getInt(3));
+                divisions.put(division.getId(), division);
+            }
+            return divisions;
+        });
+    }
+
+    /**
+     * lambda1: read the countries into a map
+     *
+     * @return every country by its id
+     * @throws SQLException any exception from the query
+     */
+    public Map<Long, Country> findCountries() throws SQLException {
+        // lambda to read the countries into a map
+        return runner.query("SELECT Country_ID, Country FROM countries", null, rs -> {
+            final Map<Long, Country> countries = new HashMap<>();
+            while (rs.next()) {
+                final Country country = new Country(rs.getInt(1), rs.getString(2));
+                countries.put(country.getId(), country);
+            }
+            return countries;
+        });
+    }
+}
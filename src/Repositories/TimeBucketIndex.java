@@ -0,0 +1,80 @@
+package Repositories;
+
+import Models.Appointment;
+
+import java.time.LocalDateTime;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * the month and week buckets of the loaded appointments, using the same UTC months and weeks the database filters by.
+ * the buckets are computed once when an appointment is added, so a filter over rows that are already in memory only
+ * compares keys instead of doing date arithmetic or running a query. the index holds the appointment instances
+ * themselves, so an appointment whose start is edited in place has to be updated
+ *
+ * @see AppointmentRepository.Period
+ */
+public final class TimeBucketIndex {
+    private final Map<Appointment, long[]> keys = new IdentityHashMap<>();
+
+    /**
+     * creates an empty index
+     */
+    public TimeBucketIndex() {
+    }
+
+    /**
+     * @param appointment the appointment to add to the buckets of its start
+     */
+    public void add(Appointment appointment) {
+        final LocalDateTime start = appointment.getUTCStart();
+        final long[] appointmentKeys = new long[AppointmentRepository.Period.values().length];
+        for (AppointmentRepository.Period period : AppointmentRepository.Period.values()) {
+            appointmentKeys[period.ordinal()] = toKey(period, start.getYear(), period.of(start));
+        }
+        keys.put(appointment, appointmentKeys);
+    }
+
+    /**
+     * @param appointment the appointment to take out of its buckets
+     */
+    public void remove(Appointment appointment) {
+        keys.remove(appointment);
+    }
+
+    /**
+     * moves an appointment whose start may have changed to its new buckets. an appointment that is not in the index is
+     * left out
+     *
+     * @param appointment the appointment that was edited
+     */
+    public void update(Appointment appointment) {
+        if (keys.containsKey(appointment)) add(appointment);
+    }
+
+    /**
+     * empties every bucket
+     */
+    public void clear() {
+        keys.clear();
+    }
+
+    /**
+     * @param appointment the appointment to look up
+     * @param period      whether the value is a month or a week of the year
+     * @param year        the year of the bucket
+     * @param value       the month or week of the bucket
+     * @return whether the appointment is in the bucket
+     */
+    public boolean contains(Appointment appointment, AppointmentRepository.Period period, int year, int value) {
+        final long[] appointmentKeys = keys.get(appointment);
+        return appointmentKeys != null && appointmentKeys[period.ordinal()] == toKey(period, year, value);
+    }
+
+    /**
+     * @return a key unique to the period, year and value
+     */
+    private static long toKey(AppointmentRepository.Period period, int year, int value) {
+        return ((long) year * 100 + value) * AppointmentRepository.Period.values().length + period.ordinal();
+    }
+}
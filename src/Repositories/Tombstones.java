@@ -0,0 +1,80 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Database.Schema;
+import Database.Transaction;
+
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * reads and writes the deleted_records tombstones the repositories leave behind for every deleted row, so a delta
+ * refresh can tell which of the rows a client holds no longer exist
+ */
+final class Tombstones {
+    private Tombstones() {
+    }
+
+    /**
+     * lambda1: read the server time
+     *
+     * @param runner the runner to query with
+     * @return the current time of the database server, the watermark a refresh starts from
+     * @throws SQLException any exception from the query
+     */
+    static Timestamp now(QueryRunner runner) throws SQLException {
+        // lambda to read the server time
+        return runner.query("SELECT NOW()", null, rs -> {
+            rs.next();
+            return rs.getTimestamp(1);
+        });
+    }
+
+    /**
+     * lambda1: read the ids of the deleted rows
+     *
+     * @param runner the runner to query with
+     * @param table  the table the rows were deleted from
+     * @param since  the watermark of the previous refresh
+     * @return the ids of the rows deleted at or after the watermark
+     * @throws SQLException any exception from the query
+     */
+    static Set<Long> findDeletedSince(QueryRunner runner, String table, Timestamp since) throws SQLException {
+        // lambda to read the ids of the deleted rows
+        return runner.query("SELECT Record_ID FROM deleted_records WHERE Table_Name = ? AND Deleted_At >= ?",
+                List.of(table, since), rs -> {
+                    final Set<Long> ids = new HashSet<>();
+                    while (rs.next()) {
+                        ids.add(rs.getLong(1));
+                    }
+                    return ids;
+                });
+    }
+
+    /**
+     * leaves a tombstone for each row the condition matches, in the transaction that deletes them. the tombstones
+     * older than Schema#TOMBSTONE_RETENTION_DAYS are purged along with it, a range delete on the index of Deleted_At,
+     * so the table stays small without a purge on every connect
+     *
+     * @param transaction the transaction the rows are being deleted in
+     * @param table       the table the rows are deleted from
+     * @param idColumn    the primary key column of the table
+     * @param condition   the condition of the delete
+     * @param arguments   the arguments of the condition
+     * @throws SQLException any exception from the insert, which rolls back the delete
+     */
+    static void record(Transaction transaction, String table, String idColumn, String condition, List<?> arguments)
+            throws SQLException {
+        final List<Object> insertArguments = new ArrayList<>();
+        insertArguments.add(table);
+        insertArguments.addAll(arguments);
+        transaction.executeUpdate(String.format("INSERT INTO deleted_records (Table_Name, Record_ID) " +
+                "SELECT ?, %s FROM %s WHERE %s", idColumn, table, condition), insertArguments);
+        transaction.executeUpdate("DELETE FROM deleted_records " +
+                "WHERE Deleted_At < TIMESTAMPADD(DAY, -" + Schema.TOMBSTONE_RETENTION_DAYS + ", NOW())", null);
+    }
+}
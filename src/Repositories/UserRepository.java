@@ -0,0 +1,57 @@
+package Repositories;
+
+import Database.QueryRunner;
+import Models.User;
+
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * queries the users of the app
+ */
+public final class UserRepository {
+    private final QueryRunner runner;
+
+    public UserRepository(QueryRunner runner) {
+        this.runner = runner;
+    }
+
+    /**
+     * lambda1: compare the stored password hash with the given one
+     *
+     * @param username     the name the user logged in with
+     * @param passwordHash the hash of the password the user logged in with
+     * @return the id of the user, -1 when there is no such user or the password does not match
+     * @throws SQLException any exception from the query
+     */
+    public long authenticate(String username, String passwordHash) throws SQLException {
+        // lambda to compare the stored password hash with the given one
+        return runner.query("SELECT User_ID, Password " +
+                "FROM users " +
+                "WHERE User_Name = ? " +
+                "LIMIT 1", List.of(username), rs -> {
+            if (rs.next() && rs.getString(2).trim().equals(passwordHash.trim())) return rs.getLong(1);
+            return -1L;
+        });
+    }
+
+    /**
+     * lambda1: read the users into a map
+     *
+     * @return every user by its id
+     * @throws SQLException any exception from the query
+     */
+    public Map<Long, User> findAll() throws SQLException {
+        // lambda to read the users into a map
+        return runner.query("SELECT User_ID, User_Name FROM users", null, rs -> {
+            final Map<Long, User> users = new HashMap<>();
+            while (rs.next()) {
+                final User user = new User(rs.getLong(1), rs.getString(2));
+                users.put(user.getId(), user);
+            }
+            return users;
+        });
+    }
+}
@@ -30,4 +30,9 @@ public class Main extends Application {
         primaryStage.setScene(scene);
         primaryStage.show();
     }
+
+    @Override
+    public void stop() {
+        Base.shutdownDatabase();
+    }
 }
@@ -1,7 +1,12 @@
 module SchedulingApp {
     requires javafx.fxml;
     requires javafx.controls;
-    requires java.sql;
+    requires transitive java.sql;
+    requires java.management;
+
+    exports Database;
+    exports Models;
+    exports Repositories;
 
     opens Controllers to javafx.fxml;
     opens main;